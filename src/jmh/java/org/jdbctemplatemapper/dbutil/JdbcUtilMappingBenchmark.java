@@ -0,0 +1,284 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.skillsdemo.util.MockResultSet;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Throughput of the JdbcUtil mappers for result sets of 100 and 10000 rows which are 'narrow' (the
+ * ids and 4 columns per object) or 'wide' (the ids and 16 columns per object). The rows come from
+ * an in memory ResultSet (see MockResultSet.createInMemory()) with the value types the postgres
+ * driver returns, so the numbers are those of the mapping only. Results are ops per second where
+ * an op maps all the rows of the result set. convertToDbColumnAttributes() always reads all the
+ * properties of the object so it does not change with 'columns'.
+ *
+ * <p>To see the allocations per op (gc.alloc.rate.norm) run with the gc profiler:
+ *
+ * <p>mvn -P benchmarks test-compile exec:exec -Djmh.args="JdbcUtilMappingBenchmark -prof gc"
+ *
+ * @author ajoseph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcUtilMappingBenchmark {
+  // order lines per order in the result set of toManyMapper()
+  private static final int LINES_PER_ORDER = 10;
+
+  // the data columns of Order, OrderLine and Customer. 'narrow' result sets have the first 4
+  private static final String[] DATA_COLUMNS = {
+    "name",
+    "quantity",
+    "amount",
+    "created_on",
+    "description",
+    "code",
+    "status",
+    "price",
+    "weight",
+    "active",
+    "notes",
+    "updated_on",
+    "due_date",
+    "priority",
+    "rating",
+    "ref_number"
+  };
+
+  @Param({"100", "10000"})
+  private int rows;
+
+  @Param({"narrow", "wide"})
+  private String columns;
+
+  private JdbcUtil jdbcUtil;
+  private SelectMapper<Order> orderMapper;
+  private SelectMapper<OrderLine> orderLineMapper;
+  private SelectMapper<Customer> customerMapper;
+
+  // orders only
+  private ResultSet orderResultSet;
+  // orders join customer. An order per row
+  private ResultSet orderCustomerResultSet;
+  // orders join order lines. LINES_PER_ORDER rows per order
+  private ResultSet orderLineResultSet;
+  private List<Order> orders;
+
+  @Setup
+  public void setup() {
+    // JdbcUtil does not connect to the database to map ResultSets
+    jdbcUtil = new JdbcUtil(new NamedParameterJdbcTemplate(new DriverManagerDataSource()));
+    orderMapper = new SelectMapper<>(Order.class, "o_");
+    orderLineMapper = new SelectMapper<>(OrderLine.class, "ol_");
+    customerMapper = new SelectMapper<>(Customer.class, "c_");
+
+    int dataColumnCount = "wide".equals(columns) ? DATA_COLUMNS.length : 4;
+
+    List<String> orderColumns = new ArrayList<>();
+    addColumns(orderColumns, "", dataColumnCount, "id", "customer_id");
+    Object[][] orderData = new Object[rows][];
+    for (int i = 0; i < rows; i++) {
+      orderData[i] = createRow(i, dataColumnCount, (long) i + 1, (long) i % 100 + 1);
+    }
+    orderResultSet = createResultSet(orderColumns, orderData);
+
+    List<String> orderCustomerColumns = new ArrayList<>();
+    addColumns(orderCustomerColumns, "o_", dataColumnCount, "id", "customer_id");
+    addColumns(orderCustomerColumns, "c_", dataColumnCount, "id");
+    Object[][] orderCustomerData = new Object[rows][];
+    for (int i = 0; i < rows; i++) {
+      long customerId = (long) i % 100 + 1;
+      orderCustomerData[i] =
+          concat(
+              createRow(i, dataColumnCount, (long) i + 1, customerId),
+              createRow(i, dataColumnCount, customerId));
+    }
+    orderCustomerResultSet = createResultSet(orderCustomerColumns, orderCustomerData);
+
+    List<String> orderLineColumns = new ArrayList<>();
+    addColumns(orderLineColumns, "o_", dataColumnCount, "id", "customer_id");
+    addColumns(orderLineColumns, "ol_", dataColumnCount, "id", "order_id");
+    Object[][] orderLineData = new Object[rows][];
+    for (int i = 0; i < rows; i++) {
+      long orderId = (long) i / LINES_PER_ORDER + 1;
+      orderLineData[i] =
+          concat(
+              createRow(i, dataColumnCount, orderId, (long) i % 100 + 1),
+              createRow(i, dataColumnCount, (long) i + 1, orderId));
+    }
+    orderLineResultSet = createResultSet(orderLineColumns, orderLineData);
+
+    orders = jdbcUtil.toOneMapper(orderCustomerResultSet, orderMapper, "customer", customerMapper);
+  }
+
+  @Benchmark
+  public List<Order> rowMapper() throws SQLException {
+    // JdbcUtil.newInstance() for each row
+    orderResultSet.beforeFirst();
+    RowMapper<Order> rowMapper = jdbcUtil.getRowMapper(Order.class);
+    List<Order> list = new ArrayList<>();
+    for (int rowNum = 0; orderResultSet.next(); rowNum++) {
+      list.add(rowMapper.mapRow(orderResultSet, rowNum));
+    }
+    return list;
+  }
+
+  @Benchmark
+  public List<Order> toOneMapper() throws SQLException {
+    orderCustomerResultSet.beforeFirst();
+    return jdbcUtil.toOneMapper(orderCustomerResultSet, orderMapper, "customer", customerMapper);
+  }
+
+  @Benchmark
+  public List<Order> toManyMapper() throws SQLException {
+    orderLineResultSet.beforeFirst();
+    return jdbcUtil.toManyMapper(orderLineResultSet, orderMapper, "lines", orderLineMapper);
+  }
+
+  @Benchmark
+  @SuppressWarnings("rawtypes")
+  public Map<String, List> multipleModelMapper() throws SQLException {
+    orderLineResultSet.beforeFirst();
+    return jdbcUtil.multipleModelMapper(orderLineResultSet, orderMapper, orderLineMapper);
+  }
+
+  @Benchmark
+  public void convertToDbColumnAttributes(Blackhole blackhole) {
+    // done for each object by insert() and the batch inserts
+    for (Order order : orders) {
+      blackhole.consume(jdbcUtil.convertToDbColumnAttributes(order));
+    }
+  }
+
+  private static void addColumns(
+      List<String> columnNames, String prefix, int dataColumnCount, String... idColumns) {
+    for (String idColumn : idColumns) {
+      columnNames.add(prefix + idColumn);
+    }
+    for (int i = 0; i < dataColumnCount; i++) {
+      columnNames.add(prefix + DATA_COLUMNS[i]);
+    }
+  }
+
+  // the ids followed by the values of the data columns as the jdbc driver returns them
+  private static Object[] createRow(int rowNum, int dataColumnCount, Object... ids) {
+    Object[] row = new Object[ids.length + dataColumnCount];
+    System.arraycopy(ids, 0, row, 0, ids.length);
+    for (int i = 0; i < dataColumnCount; i++) {
+      row[ids.length + i] = createValue(DATA_COLUMNS[i], rowNum);
+    }
+    return row;
+  }
+
+  private static Object createValue(String column, int rowNum) {
+    switch (column) {
+      case "quantity":
+      case "priority":
+        return rowNum % 50;
+      case "amount":
+      case "price":
+        return BigDecimal.valueOf(rowNum * 100L + 99, 2);
+      case "created_on":
+      case "updated_on":
+        return new Timestamp(1_600_000_000_000L + rowNum * 60_000L);
+      case "due_date":
+        return Date.valueOf(LocalDate.of(2020, 1, 1).plusDays(rowNum % 365));
+      case "weight":
+      case "rating":
+        return rowNum * 0.5;
+      case "active":
+        return rowNum % 2 == 0;
+      case "ref_number":
+        return 1_000_000L + rowNum;
+      default:
+        // some nulls like a real table
+        return rowNum % 10 == 0 ? null : column + " " + rowNum;
+    }
+  }
+
+  private static Object[] concat(Object[] first, Object[] second) {
+    Object[] row = new Object[first.length + second.length];
+    System.arraycopy(first, 0, row, 0, first.length);
+    System.arraycopy(second, 0, row, first.length, second.length);
+    return row;
+  }
+
+  private static ResultSet createResultSet(List<String> columnNames, Object[][] data) {
+    return MockResultSet.createInMemory(columnNames.toArray(new String[0]), data);
+  }
+
+  /** The data properties of the benchmark entities. */
+  @Getter
+  @Setter
+  public static class BaseEntity {
+    private String name;
+    private Integer quantity;
+    private BigDecimal amount;
+    private LocalDateTime createdOn;
+    private String description;
+    private String code;
+    private String status;
+    private BigDecimal price;
+    private Double weight;
+    private Boolean active;
+    private String notes;
+    private LocalDateTime updatedOn;
+    private LocalDate dueDate;
+    private Integer priority;
+    private Double rating;
+    private Long refNumber;
+  }
+
+  @Getter
+  @Setter
+  public static class Order extends BaseEntity {
+    private Long id;
+    private Long customerId;
+    private Customer customer;
+    private List<OrderLine> lines;
+  }
+
+  @Getter
+  @Setter
+  public static class OrderLine extends BaseEntity {
+    private Long id;
+    private Long orderId;
+  }
+
+  @Getter
+  @Setter
+  public static class Customer extends BaseEntity {
+    private Long id;
+  }
+}
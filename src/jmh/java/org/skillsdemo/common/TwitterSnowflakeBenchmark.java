@@ -0,0 +1,71 @@
+package org.skillsdemo.common;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of TwitterSnowflake with 1 to 64 threads sharing one generator. Results are ids per
+ * microsecond. A single generator can not do more than 4096 ids per millisecond (the sequence
+ * bits), so the numbers show how close the generator gets to that limit as contention goes up.
+ *
+ * @author ajoseph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TwitterSnowflakeBenchmark {
+  private static final int BULK_SIZE = 100;
+
+  private final TwitterSnowflake snowflake = new TwitterSnowflake(1);
+
+  @Benchmark
+  @Threads(1)
+  public long nextId_1thread() {
+    return snowflake.nextId();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long nextId_4threads() {
+    return snowflake.nextId();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public long nextId_16threads() {
+    return snowflake.nextId();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public long nextId_64threads() {
+    return snowflake.nextId();
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(BULK_SIZE)
+  public long[] nextIds_1thread() {
+    return snowflake.nextIds(BULK_SIZE);
+  }
+
+  @Benchmark
+  @Threads(64)
+  @OperationsPerInvocation(BULK_SIZE)
+  public long[] nextIds_64threads() {
+    return snowflake.nextIds(BULK_SIZE);
+  }
+}
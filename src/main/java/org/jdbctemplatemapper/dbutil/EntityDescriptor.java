@@ -0,0 +1,403 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Per class metadata used by JdbcUtil. Built once per class and cached so that mapping rows and
+ * writing objects does not need reflection lookups or BeanWrapper instances.
+ *
+ * <p>Getters, setters and the no-arg constructor are bound through LambdaMetafactory. If that is
+ * not possible (for example the class is not visible from this class loader) plain MethodHandles
+ * are used instead. If a build time generated IEntityMapper exists for the class (class name +
+ * 'JdbcMapper') it is used for mapping rows and reading the property values.
+ *
+ * @author ajoseph
+ */
+public final class EntityDescriptor {
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private final Class<?> clazz;
+  private final String tableName;
+  private final Supplier<Object> constructor;
+  private final List<Property> properties;
+  private final Map<String, Property> propertyMap;
+  private final Map<String, Property> columnNamePropertyMap;
+  private final Property idProperty;
+  // generated mapper for the class. null if there is none
+  private final IEntityMapper<Object> entityMapper;
+  // the properties in the order of entityMapper.getReadablePropertyNames()
+  private final Property[] entityMapperReadableProperties;
+
+  EntityDescriptor(Class<?> clazz, String tableName, Function<String, String> toColumnName) {
+    this.clazz = clazz;
+    this.tableName = tableName;
+    this.constructor = buildConstructor(clazz);
+
+    List<Property> list = new ArrayList<>();
+    Map<String, Property> map = new HashMap<>();
+    Map<String, Property> columnMap = new HashMap<>();
+    for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(clazz)) {
+      if ("class".equals(pd.getName())) {
+        continue;
+      }
+      Property property =
+          new Property(
+              pd.getName(),
+              toColumnName.apply(pd.getName()),
+              pd.getPropertyType(),
+              buildGetter(pd.getReadMethod()),
+              buildSetter(pd.getWriteMethod()));
+      list.add(property);
+      map.put(property.getName(), property);
+      columnMap.put(property.getColumnName(), property);
+    }
+    this.properties = Collections.unmodifiableList(list);
+    this.propertyMap = map;
+    this.columnNamePropertyMap = columnMap;
+    this.idProperty = map.get("id");
+
+    this.entityMapper = loadEntityMapper(clazz);
+    if (entityMapper != null) {
+      String[] names = entityMapper.getReadablePropertyNames();
+      this.entityMapperReadableProperties = new Property[names.length];
+      for (int i = 0; i < names.length; i++) {
+        entityMapperReadableProperties[i] = getRequiredProperty(names[i]);
+      }
+    } else {
+      this.entityMapperReadableProperties = null;
+    }
+  }
+
+  public Class<?> getClazz() {
+    return clazz;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  /**
+   * All the properties of the class excluding 'class'.
+   *
+   * @return list of properties
+   */
+  public List<Property> getProperties() {
+    return properties;
+  }
+
+  /**
+   * Returns the property for the property name. null if the class does not have the property.
+   *
+   * @param propertyName - the property name
+   * @return the property
+   */
+  public Property getProperty(String propertyName) {
+    return propertyName == null ? null : propertyMap.get(propertyName);
+  }
+
+  /**
+   * Same as getProperty() but throws an exception if the property does not exist.
+   *
+   * @param propertyName - the property name
+   * @return the property
+   */
+  public Property getRequiredProperty(String propertyName) {
+    Property property = getProperty(propertyName);
+    if (property == null) {
+      throw new IllegalArgumentException(
+          "Invalid property '" + propertyName + "' for " + clazz.getSimpleName());
+    }
+    return property;
+  }
+
+  /**
+   * Returns the property which maps to the database column. null if there is no such property.
+   *
+   * @param columnName - the database column name. ex: last_name
+   * @return the property
+   */
+  public Property getPropertyByColumnName(String columnName) {
+    return columnName == null ? null : columnNamePropertyMap.get(columnName);
+  }
+
+  public boolean isReadableProperty(String propertyName) {
+    Property property = getProperty(propertyName);
+    return property != null && property.isReadable();
+  }
+
+  public Property getIdProperty() {
+    if (idProperty == null) {
+      throw new IllegalArgumentException(clazz.getSimpleName() + " does not have an 'id' property");
+    }
+    return idProperty;
+  }
+
+  public Object getId(Object obj) {
+    return getIdProperty().getValue(obj);
+  }
+
+  public Object newInstance() {
+    return constructor.get();
+  }
+
+  /**
+   * The build time generated mapper of the class.
+   *
+   * @return the mapper. null if the class does not have one
+   */
+  IEntityMapper<Object> getEntityMapper() {
+    return entityMapper;
+  }
+
+  /**
+   * Returns the values of all the readable properties of the object.
+   *
+   * @param obj - the object
+   * @param keyByColumnName - true: map is keyed by column name (last_name). false: keyed by
+   *     property name (lastName)
+   * @return Map of property values
+   */
+  public Map<String, Object> getPropertyValues(Object obj, boolean keyByColumnName) {
+    Map<String, Object> values = new HashMap<>();
+    if (entityMapper != null) {
+      Object[] mapperValues = entityMapper.getValues(obj);
+      for (int i = 0; i < mapperValues.length; i++) {
+        Property property = entityMapperReadableProperties[i];
+        values.put(
+            keyByColumnName ? property.getColumnName() : property.getName(), mapperValues[i]);
+      }
+    } else {
+      for (Property property : properties) {
+        if (property.isReadable()) {
+          values.put(
+              keyByColumnName ? property.getColumnName() : property.getName(),
+              property.getValue(obj));
+        }
+      }
+    }
+    return values;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static IEntityMapper<Object> loadEntityMapper(Class<?> clazz) {
+    try {
+      Class<?> mapperClass =
+          Class.forName(clazz.getName() + "JdbcMapper", true, clazz.getClassLoader());
+      if (!IEntityMapper.class.isAssignableFrom(mapperClass)) {
+        return null;
+      }
+      return (IEntityMapper<Object>) mapperClass.getDeclaredConstructor().newInstance();
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      throw new RuntimeException("Failed to load generated mapper for " + clazz.getName(), e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Supplier<Object> buildConstructor(Class<?> clazz) {
+    try {
+      Constructor<?> ctor = clazz.getDeclaredConstructor();
+      MethodHandle mh = LOOKUP.unreflectConstructor(ctor);
+      try {
+        CallSite site =
+            LambdaMetafactory.metafactory(
+                LOOKUP,
+                "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                mh,
+                mh.type());
+        return (Supplier<Object>) site.getTarget().invokeExact();
+      } catch (Throwable e) {
+        MethodHandle generic = mh.asType(MethodType.methodType(Object.class));
+        return () -> {
+          try {
+            return generic.invokeExact();
+          } catch (Throwable t) {
+            throw new RuntimeException(t);
+          }
+        };
+      }
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      // no accessible no-arg constructor. Objects of this class can be written but not mapped
+      return () -> {
+        throw new RuntimeException(clazz.getName() + " needs a public no-arg constructor");
+      };
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Function<Object, Object> buildGetter(Method readMethod) {
+    if (readMethod == null) {
+      return null;
+    }
+    try {
+      MethodHandle mh = LOOKUP.unreflect(readMethod);
+      try {
+        CallSite site =
+            LambdaMetafactory.metafactory(
+                LOOKUP,
+                "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                mh,
+                mh.type().wrap());
+        return (Function<Object, Object>) site.getTarget().invokeExact();
+      } catch (Throwable e) {
+        MethodHandle generic = mh.asType(MethodType.methodType(Object.class, Object.class));
+        return obj -> {
+          try {
+            return generic.invokeExact(obj);
+          } catch (Throwable t) {
+            throw new RuntimeException(t);
+          }
+        };
+      }
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static BiConsumer<Object, Object> buildSetter(Method writeMethod) {
+    if (writeMethod == null) {
+      return null;
+    }
+    try {
+      MethodHandle mh = LOOKUP.unreflect(writeMethod);
+      try {
+        CallSite site =
+            LambdaMetafactory.metafactory(
+                LOOKUP,
+                "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                mh,
+                mh.type().wrap().changeReturnType(void.class));
+        return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+      } catch (Throwable e) {
+        MethodHandle generic =
+            mh.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (obj, value) -> {
+          try {
+            generic.invokeExact(obj, value);
+          } catch (Throwable t) {
+            throw new RuntimeException(t);
+          }
+        };
+      }
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /** A single property of the class along with its column name and accessors. */
+  public static final class Property {
+    private static final ConversionService CONVERSION_SERVICE =
+        DefaultConversionService.getSharedInstance();
+
+    private final String name;
+    private final String columnName;
+    private final Class<?> type;
+    private final Class<?> wrapperType;
+    private final int sqlType;
+    private final Function<Object, Object> getter;
+    private final BiConsumer<Object, Object> setter;
+
+    Property(
+        String name,
+        String columnName,
+        Class<?> type,
+        Function<Object, Object> getter,
+        BiConsumer<Object, Object> setter) {
+      this.name = name;
+      this.columnName = columnName;
+      this.type = type;
+      this.wrapperType = ClassUtils.resolvePrimitiveIfNecessary(type);
+      this.sqlType = StatementCreatorUtils.javaTypeToSqlParameterType(type);
+      this.getter = getter;
+      this.setter = setter;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getColumnName() {
+      return columnName;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    /**
+     * The java.sql.Types value for the property type. SqlTypeValue.TYPE_UNKNOWN if it cannot be
+     * determined.
+     *
+     * @return the sql type
+     */
+    public int getSqlType() {
+      return sqlType;
+    }
+
+    public boolean isReadable() {
+      return getter != null;
+    }
+
+    public boolean isWritable() {
+      return setter != null;
+    }
+
+    public Object getValue(Object obj) {
+      if (getter == null) {
+        throw new IllegalArgumentException("Property '" + name + "' is not readable");
+      }
+      return getter.apply(obj);
+    }
+
+    /**
+     * Sets the value on the object converting it to the property type if needed. For example a
+     * java.sql.Timestamp from the database gets converted to LocalDateTime.
+     *
+     * @param obj - the object
+     * @param value - the value
+     */
+    public void setValue(Object obj, Object value) {
+      if (setter == null) {
+        throw new IllegalArgumentException("Property '" + name + "' is not writable");
+      }
+      if (value == null) {
+        if (type.isPrimitive()) {
+          // same as BeanPropertyRowMapper. leave the default value
+          return;
+        }
+      } else if (!wrapperType.isInstance(value)) {
+        value = CONVERSION_SERVICE.convert(value, wrapperType);
+      }
+      setter.accept(obj, value);
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which a IEntityMapper gets generated at build time. The annotation processor
+ * only runs with the maven profile 'generated-mappers'. Without it JdbcUtil falls back to the
+ * property accessors of EntityDescriptor, so the annotation has no effect.
+ *
+ * @author ajoseph
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateMapper {}
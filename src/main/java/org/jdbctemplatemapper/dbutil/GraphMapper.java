@@ -0,0 +1,76 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a tree of objects which JdbcUtil.graphMapper() builds from a single ResultSet. Each
+ * level is a SelectMapper and a level can have collections of child levels.
+ *
+ * <pre>
+ * new GraphMapper&lt;&gt;(new SelectMapper&lt;&gt;(Timesheet.class))
+ *     .toMany("timesheetLines",
+ *         new GraphMapper&lt;&gt;(new SelectMapper&lt;&gt;(TimesheetLine.class, "timesheetline_"))
+ *             .toMany("timeEntries", new SelectMapper&lt;&gt;(TimeEntry.class, "timeentry_")));
+ * </pre>
+ *
+ * @author ajoseph
+ */
+public class GraphMapper<T> {
+  private final SelectMapper<T> selectMapper;
+  private final List<Child> children = new ArrayList<>();
+
+  public GraphMapper(SelectMapper<T> selectMapper) {
+    this.selectMapper = selectMapper;
+  }
+
+  /**
+   * Adds a child collection to this level.
+   *
+   * @param collectionPropertyName - the collection property of this level's class
+   * @param childGraphMapper - the child level which can have its own child collections
+   * @return this
+   */
+  public GraphMapper<T> toMany(String collectionPropertyName, GraphMapper<?> childGraphMapper) {
+    children.add(new Child(collectionPropertyName, childGraphMapper));
+    return this;
+  }
+
+  /**
+   * Adds a child collection with no further levels to this level.
+   *
+   * @param collectionPropertyName - the collection property of this level's class
+   * @param childSelectMapper - the mapper for the child objects
+   * @return this
+   */
+  public GraphMapper<T> toMany(String collectionPropertyName, SelectMapper<?> childSelectMapper) {
+    return toMany(collectionPropertyName, new GraphMapper<>(childSelectMapper));
+  }
+
+  public SelectMapper<T> getSelectMapper() {
+    return selectMapper;
+  }
+
+  List<Child> getChildren() {
+    return Collections.unmodifiableList(children);
+  }
+
+  static class Child {
+    private final String collectionPropertyName;
+    private final GraphMapper<?> graphMapper;
+
+    Child(String collectionPropertyName, GraphMapper<?> graphMapper) {
+      this.collectionPropertyName = collectionPropertyName;
+      this.graphMapper = graphMapper;
+    }
+
+    String getCollectionPropertyName() {
+      return collectionPropertyName;
+    }
+
+    GraphMapper<?> getGraphMapper() {
+      return graphMapper;
+    }
+  }
+}
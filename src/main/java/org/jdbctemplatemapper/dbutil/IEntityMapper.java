@@ -0,0 +1,48 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row mapper and parameter binder for a class, generated at build time for classes annotated with
+ * GenerateMapper (see org.jdbctemplatemapper.processor.EntityMapperProcessor). The generated
+ * class is named class name + 'JdbcMapper' and is in the same package as the class. When it is
+ * present JdbcUtil uses it instead of the property accessors of EntityDescriptor.
+ *
+ * @author ajoseph
+ */
+public interface IEntityMapper<T> {
+
+  /**
+   * The writable property names in the order used by mapRow().
+   *
+   * @return property names
+   */
+  String[] getWritablePropertyNames();
+
+  /**
+   * The readable property names in the order of the values returned by getValues().
+   *
+   * @return property names
+   */
+  String[] getReadablePropertyNames();
+
+  /**
+   * Creates the object and populates it from the current row of the result set.
+   *
+   * @param rs - the result set positioned on a row
+   * @param columnIndexes - jdbc column index for each of getWritablePropertyNames(). 0 if the
+   *     result set does not have the column
+   * @return the populated object
+   * @throws SQLException on a jdbc failure
+   */
+  T mapRow(ResultSet rs, int[] columnIndexes) throws SQLException;
+
+  /**
+   * The values of the readable properties of the object.
+   *
+   * @param obj - the object
+   * @return values in the order of getReadablePropertyNames()
+   */
+  Object[] getValues(T obj);
+}
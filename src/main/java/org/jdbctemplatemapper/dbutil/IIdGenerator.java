@@ -0,0 +1,17 @@
+package org.jdbctemplatemapper.dbutil;
+
+/**
+ * Generates ids for IdStrategy.SNOWFLAKE
+ *
+ * @author ajoseph
+ */
+public interface IIdGenerator {
+
+  /**
+   * Get the next ids
+   *
+   * @param count - number of ids needed
+   * @return array of unique ids of length count
+   */
+  long[] nextIds(int count);
+}
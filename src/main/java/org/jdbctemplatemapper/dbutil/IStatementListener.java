@@ -0,0 +1,30 @@
+package org.jdbctemplatemapper.dbutil;
+
+/**
+ * Gets notified of each statement run by JdbcUtil (and the dao statements run with
+ * JdbcUtil.timedQuery()/timedUpdate()) once it completes successfully. Called on the thread which
+ * ran the statement so implementations have to be thread safe and fast. See
+ * JdbcUtil.withStatementListener()
+ *
+ * @author ajoseph
+ */
+public interface IStatementListener {
+
+  /**
+   * @param clazz - the entity class. null if the statement is not for an entity
+   * @param operation - the JdbcUtil operation. ex: findById, toMany, query, update
+   * @param statement - the sql generated by JdbcUtil or the name of a dao statement
+   * @param named - true if statement is a name instead of sql
+   * @param update - true for insert/update/delete. false for queries
+   * @param rows - rows affected for an update, rows returned for a query
+   * @param elapsedNanos - execution time of the statement
+   */
+  void statementExecuted(
+      Class<?> clazz,
+      String operation,
+      String statement,
+      boolean named,
+      boolean update,
+      int rows,
+      long elapsedNanos);
+}
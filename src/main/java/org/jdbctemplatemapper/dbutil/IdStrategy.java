@@ -0,0 +1,26 @@
+package org.jdbctemplatemapper.dbutil;
+
+/**
+ * How ids of objects inserted without an id are assigned. See JdbcUtil.withIdStrategy()
+ *
+ * @author ajoseph
+ */
+public enum IdStrategy {
+  /**
+   * The database generates the id (serial/identity column) and it is read back after the insert.
+   * The default.
+   */
+  SERIAL,
+
+  /**
+   * JdbcUtil assigns the id from the table's sequence (table name + '_id_seq') before the insert.
+   * Values are fetched in blocks, see JdbcUtil.withSequenceBlockSize().
+   */
+  SEQUENCE_POOL,
+
+  /**
+   * JdbcUtil assigns the id from the IIdGenerator configured with JdbcUtil.withIdGenerator()
+   * (TwitterSnowflake etc). The id property and column have to be able to hold a long.
+   */
+  SNOWFLAKE
+}
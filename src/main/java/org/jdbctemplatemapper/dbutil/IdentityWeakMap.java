@@ -0,0 +1,76 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map keyed by object identity which does not keep its keys from being garbage collected. Used by
+ * JdbcUtil to hold the dirty tracking snapshots of the objects it loaded.
+ *
+ * <p>WeakHashMap can not be used since it relies on equals()/hashCode() and those change when a
+ * lombok @Data object is modified. Entries of collected keys are removed on the next access.
+ *
+ * <p>Thread safe.
+ *
+ * @author ajoseph
+ */
+final class IdentityWeakMap<V> {
+  private final Map<IdentityWeakReference, V> map = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+  V get(Object key) {
+    expungeStaleEntries();
+    return map.get(new IdentityWeakReference(key, null));
+  }
+
+  void put(Object key, V value) {
+    expungeStaleEntries();
+    map.put(new IdentityWeakReference(key, queue), value);
+  }
+
+  V remove(Object key) {
+    expungeStaleEntries();
+    return map.remove(new IdentityWeakReference(key, null));
+  }
+
+  int size() {
+    expungeStaleEntries();
+    return map.size();
+  }
+
+  private void expungeStaleEntries() {
+    Object ref;
+    while ((ref = queue.poll()) != null) {
+      map.remove(ref);
+    }
+  }
+
+  private static class IdentityWeakReference extends WeakReference<Object> {
+    private final int hash;
+
+    IdentityWeakReference(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.hash = System.identityHashCode(referent);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof IdentityWeakReference)) {
+        return false;
+      }
+      // a collected referent is only equal to its own reference (removal from the queue)
+      Object referent = get();
+      return referent != null && referent == ((IdentityWeakReference) obj).get();
+    }
+  }
+}
@@ -1,39 +1,77 @@
 package org.jdbctemplatemapper.dbutil;
 
-import java.beans.PropertyDescriptor;
-import java.sql.DatabaseMetaData;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.PropertyAccessorFactory;
+import javax.sql.DataSource;
+
+import org.jdbctemplatemapper.dbutil.EntityDescriptor.Property;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.cache.Cache;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * 1) Simple CRUD one liners using spring's JDBC template. 2) Methods to map relationships (toOne,
  * toMany etc) 3) Uses springsecurity's Principal to populate createdBy, updateBy .. fields.
  *
- * <p>TODO
- * 1) fix id so it can be integer/long. Maybe it can be any time.
+ * <p>The id of the objects can be of type Integer or Long.
  *
  * @author ajoseph
  */
@@ -51,6 +89,18 @@ public class JdbcUtil {
 
   private static int IN_CLAUSE_CHUNK_SIZE = 100;
 
+  // true - relationship queries (toOne, toMany) send the ids as a single array parameter
+  //        'column = any(:ids)'. Works for PostgreSQL.
+  // false - ids are sent in chunks of IN_CLAUSE_CHUNK_SIZE using 'column in (:ids)'. Use for
+  //         databases which do not support array parameters.
+  private boolean useIdArrayBinding = true;
+
+  // number of statements sent to the database in one jdbc batch
+  private static int BATCH_SIZE = 100;
+
+  // copyIn() sends the data to the database in chunks of this many characters
+  private static int COPY_BUFFER_SIZE = 64 * 1024;
+
   // Convert camel case to snake case regex pattern
   private static Pattern TO_SNAKE_CASE_PATTERN = Pattern.compile("(.)(\\p{Upper})");
 
@@ -64,13 +114,69 @@ public class JdbcUtil {
   //     value - the update sql
   private Map<String, String> updateSqlCache = new ConcurrentHashMap<>();
 
+  // upsert and insertIfAbsent sql cache
+  // Map key   - tableName-generatedId-conflictColumn1-conflictColumn2. Prefixed with
+  //             insertIfAbsent- for insertIfAbsent()
+  //     value - the upsert sql and its parameter/returned properties
+  private Map<String, UpsertStatement> upsertStatementCache = new ConcurrentHashMap<>();
+
   // Map key - table name,
   //     value - the list of database column names
   private Map<String, List<String>> tableColumnNamesCache = new ConcurrentHashMap<>();
 
-  // Map key - simple Class name
-  //     value - list of property names
-  private Map<String, List<String>> objectPropertyNamesCache = new ConcurrentHashMap<>();
+  // Map key - Class
+  //     value - the entity descriptor (property accessors, column names, id accessor etc)
+  private Map<Class<?>, EntityDescriptor> entityDescriptorCache = new ConcurrentHashMap<>();
+
+  // Map key - class name|column prefix|comma separated result set column names
+  //     value - the property to column index mapping plan
+  private Map<String, MappingPlan> mappingPlanCache = new ConcurrentHashMap<>();
+
+  // Optional second level cache for findById(). Only classes registered with withEntityCache()
+  // are cached.
+  // Map key - Class
+  //     value - the cache. key - id, value - the object
+  private Map<Class<?>, Cache> entityCacheMap = new ConcurrentHashMap<>();
+
+  // classes registered with withDirtyTracking()
+  private Set<Class<?>> dirtyTrackingClasses = ConcurrentHashMap.newKeySet();
+
+  // snapshots of the objects of dirty tracking classes as loaded from the database
+  // Map key - the object (by identity, weakly referenced)
+  //     value - Map key - property name, value - the property value when loaded
+  private IdentityWeakMap<Map<String, Object>> snapshots = new IdentityWeakMap<>();
+
+  // true - inside a read/write transaction updates and inserts of objects with an id are queued
+  //        and sent as jdbc batches before commit. See withWriteBehind()
+  private boolean writeBehind = false;
+
+  // insert sql with named parameters (the column names) used for queued inserts
+  // Map key - table name
+  //     value - the insert sql
+  private Map<String, String> insertSqlCache = new ConcurrentHashMap<>();
+
+  // number of values fetched from the database when a sequence pool runs empty.
+  // 1 - no pooling. See withSequenceBlockSize()
+  private int sequenceBlockSize = 1;
+
+  // Map key - sequence name
+  //     value - sequence values fetched from the database and not handed out yet
+  private Map<String, Queue<Long>> sequencePools = new ConcurrentHashMap<>();
+
+  // classes whose ids are assigned by JdbcUtil. Classes not in the map use IdStrategy.SERIAL
+  // Map key - Class
+  //     value - the id strategy
+  private Map<Class<?>, IdStrategy> idStrategies = new ConcurrentHashMap<>();
+
+  // generates ids for IdStrategy.SNOWFLAKE
+  private IIdGenerator idGenerator;
+
+  // runs the *Async() queries. See withAsyncExecutor()
+  private Executor asyncExecutor;
+
+  // notified of each statement. See withStatementListener() and withMeterRegistry().
+  // Replaced (never modified) when a listener is added so it can be read without locking
+  private IStatementListener[] statementListeners = new IStatementListener[0];
 
   // Map key - snake case string,
   //     value - camel case string
@@ -120,8 +226,214 @@ public class JdbcUtil {
     return this;
   }
 
+  public JdbcUtil withIdArrayBinding(boolean useIdArrayBinding) {
+    this.useIdArrayBinding = useIdArrayBinding;
+    return this;
+  }
+
+  /**
+   * Turns on dirty tracking for the classes. Objects of these classes loaded or inserted through
+   * JdbcUtil remember their column values. update() and updateAll() then only write the columns
+   * which changed since (plus updatedOn, updatedBy and version) and skip objects which did not
+   * change. Objects which were not loaded through JdbcUtil are updated as usual.
+   *
+   * @param classes - the classes to track
+   * @return this
+   */
+  public JdbcUtil withDirtyTracking(Class<?>... classes) {
+    this.dirtyTrackingClasses.addAll(Arrays.asList(classes));
+    return this;
+  }
+
+  /**
+   * Write behind mode. Inside a read/write spring transaction update(), updateAll() and inserts of
+   * objects which already have an id are not executed right away. They are queued and sent to the
+   * database as jdbc batches just before the transaction commits, or earlier when JdbcUtil runs
+   * any other statement in the transaction (queries, deletes, inserts with database generated ids,
+   * upsert, copyIn) or flush() is called. Consecutive statements with the same sql share a batch
+   * and the order of the statements is kept so foreign keys are not violated.
+   *
+   * <p>Queued updates return the number of objects queued. Failures (including
+   * OptimisticLockingException) are thrown when the queue is flushed and roll back the
+   * transaction. Dao sql run with timedQuery()/timedUpdate() flushes the queue first, sql run
+   * directly with JdbcTemplate in the same transaction does not see queued changes unless flush()
+   * is called first. Deletes are never queued but they flush the queue, so callers which catch
+   * integrity violations of a delete should call flush() before it. Otherwise the failure of a
+   * queued update gets caught as the failure of the delete.
+   *
+   * @param writeBehind - true to queue writes in transactions
+   * @return this
+   */
+  public JdbcUtil withWriteBehind(boolean writeBehind) {
+    this.writeBehind = writeBehind;
+    return this;
+  }
+
+  /**
+   * Number of values getNextSequence(), getNextSequences() and IdStrategy.SEQUENCE_POOL fetch from
+   * the database in one query when the in memory pool of a sequence runs empty. Values still in
+   * the pool when the application stops are never used so the sequence will have gaps. Ids are
+   * unique but no longer in the order records were created across application instances.
+   *
+   * @param sequenceBlockSize - values fetched per query. 1 (the default) fetches on every call
+   * @return this
+   */
+  public JdbcUtil withSequenceBlockSize(int sequenceBlockSize) {
+    if (sequenceBlockSize < 1) {
+      throw new IllegalArgumentException("sequenceBlockSize has to be greater than 0");
+    }
+    this.sequenceBlockSize = sequenceBlockSize;
+    return this;
+  }
+
+  /**
+   * How ids are assigned when objects of the classes are inserted without an id. With
+   * SEQUENCE_POOL and SNOWFLAKE the id is set on the object before the insert so inserts do not
+   * need to read back generated keys, insertAll() sends plain jdbc batches and inserts can be
+   * queued by write behind. Objects which already have an id are inserted with that id.
+   *
+   * @param idStrategy - the strategy
+   * @param classes - the classes which use the strategy
+   * @return this
+   */
+  public JdbcUtil withIdStrategy(IdStrategy idStrategy, Class<?>... classes) {
+    for (Class<?> clazz : classes) {
+      idStrategies.put(clazz, idStrategy);
+    }
+    return this;
+  }
+
+  /**
+   * The id generator used for classes with IdStrategy.SNOWFLAKE
+   *
+   * @param idGenerator - the id generator
+   * @return this
+   */
+  public JdbcUtil withIdGenerator(IIdGenerator idGenerator) {
+    this.idGenerator = idGenerator;
+    return this;
+  }
+
+  /**
+   * The executor which runs findByIdAsync(), findAllAsync() and supplyAsync(). Each running query
+   * holds a database connection so the executor should have fewer threads than the connection pool
+   * and a bounded queue. Thread locals of the caller (security context, MDC etc) are only available
+   * to the queries if the executor copies them.
+   *
+   * @param asyncExecutor - the executor
+   * @return this
+   */
+  public JdbcUtil withAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+    return this;
+  }
+
+  /**
+   * Records the execution time and the rows returned/affected of every statement JdbcUtil runs, and
+   * of the dao statements run with timedQuery()/timedUpdate(), as micrometer meters
+   * jdbcutil.statement, jdbcutil.rows.returned and jdbcutil.rows.affected. See StatementMetrics for
+   * the tags. Without a registry nothing is recorded and the clock is not read.
+   *
+   * <p>Statements which fail are not recorded. Write behind statements are recorded when they are
+   * flushed and findById() served from the entity cache is not recorded since no statement runs.
+   *
+   * @param meterRegistry - the registry. null turns metrics off
+   * @return this
+   */
+  public JdbcUtil withMeterRegistry(MeterRegistry meterRegistry) {
+    List<IStatementListener> listeners = new ArrayList<>(Arrays.asList(statementListeners));
+    listeners.removeIf(listener -> listener instanceof StatementMetrics);
+    if (meterRegistry != null) {
+      listeners.add(new StatementMetrics(meterRegistry));
+    }
+    this.statementListeners = listeners.toArray(new IStatementListener[0]);
+    return this;
+  }
+
+  /**
+   * Adds a listener which is notified of every statement JdbcUtil runs, and of the dao statements
+   * run with timedQuery()/timedUpdate(), after it completes. Statements which fail are not
+   * notified. Without listeners (and metrics) the clock is not read.
+   *
+   * @param statementListener - the listener
+   * @return this
+   */
+  public JdbcUtil withStatementListener(IStatementListener statementListener) {
+    List<IStatementListener> listeners = new ArrayList<>(Arrays.asList(statementListeners));
+    listeners.add(statementListener);
+    this.statementListeners = listeners.toArray(new IStatementListener[0]);
+    return this;
+  }
+
+  /**
+   * Caches findById() results for the class. Size and expiry are configured on the cache itself
+   * (ehcache.xml). update(), updateAll(), delete(), deleteById(), deleteByIds() and deleteAll()
+   * evict the records they touch. Use for reference data which is read often and rarely changes.
+   * Changes made to the table without going through JdbcUtil are only picked up after the cache
+   * entry expires.
+   *
+   * @param clazz - the class whose findById() results are cached
+   * @param cache - the cache. key - id, value - object of the class
+   * @return this
+   */
+  public JdbcUtil withEntityCache(Class<?> clazz, Cache cache) {
+    if (cache == null) {
+      throw new IllegalArgumentException("cache for " + clazz.getSimpleName() + " is null");
+    }
+    this.entityCacheMap.put(clazz, cache);
+    return this;
+  }
+
+  /**
+   * Loads the database column metadata of all the tables in the schema with a single
+   * information_schema query and prepares the inserts of the entity classes. Call at application
+   * startup so that the first requests do not have to do the metadata lookups.
+   *
+   * @param entityClasses - the classes which are persisted using JdbcUtil
+   */
+  public void loadMetadata(Class<?>... entityClasses) {
+    String sql =
+        "select table_name, column_name, column_default, is_identity"
+            + " from information_schema.columns"
+            + " where table_schema = "
+            + (schemaName != null ? "?" : "current_schema()")
+            + " order by table_name, ordinal_position";
+    Object[] args = schemaName != null ? new Object[] {schemaName} : new Object[] {};
+
+    // Map key - table name
+    //     value - the list of database column names
+    Map<String, List<String>> tableColumns = new HashMap<>();
+    Set<String> autoIncrementIdTables = new HashSet<>();
+    jdbcTemplate.query(
+        sql,
+        rs -> {
+          String tableName = rs.getString("table_name");
+          String columnName = rs.getString("column_name");
+          tableColumns.computeIfAbsent(tableName, k -> new ArrayList<>()).add(columnName);
+          String columnDefault = rs.getString("column_default");
+          if ("id".equals(columnName)
+              && ("YES".equals(rs.getString("is_identity"))
+                  || (columnDefault != null && columnDefault.startsWith("nextval(")))) {
+            autoIncrementIdTables.add(tableName);
+          }
+        },
+        args);
+    tableColumnNamesCache.putAll(tableColumns);
+
+    for (Class<?> clazz : entityClasses) {
+      String tableName = getEntityDescriptor(clazz).getTableName();
+      if (!tableColumns.containsKey(tableName)) {
+        throw new RuntimeException(
+            "Table " + tableName + " for " + clazz.getSimpleName() + " does not exist");
+      }
+      getSimpleJdbcInsert(tableName, autoIncrementIdTables.contains(tableName)).compile();
+    }
+  }
+
   /**
-   * Returns the object by Id. Return null if not found
+   * Returns the object by Id. Return null if not found. If an entity cache is configured for the
+   * class (see withEntityCache()) the object is served from the cache when present, except in a
+   * transaction which has queued writes of the class (see withWriteBehind()).
    *
    * @param id - Id of object
    * @param type - Class of object
@@ -131,154 +443,250 @@ public class JdbcUtil {
     if (!(id instanceof Integer || id instanceof Long)) {
       throw new IllegalArgumentException("id has to be type of Integer or Long");
     }
-    String tableName = convertCamelToSnakeCase(clazz.getSimpleName());
-    String sql = "select * from " + tableName + " where id = ?";
-    RowMapper<T> mapper = BeanPropertyRowMapper.newInstance(clazz);
+    EntityDescriptor descriptor = getEntityDescriptor(clazz);
+    Cache cache = entityCacheMap.get(clazz);
+    Object cacheKey = cache != null ? toEntityCacheKey(descriptor, id) : null;
+    if (cache != null && !hasQueuedWrites(clazz)) {
+      Object cached = cache.get(cacheKey, clazz);
+      if (cached != null) {
+        // callers modify the objects they get back so never hand out the cached instance
+        Object copy = copyColumnProperties(descriptor, cached);
+        takeSnapshot(descriptor, copy);
+        return clazz.cast(copy);
+      }
+    }
+
+    flush();
+    String sql = "select * from " + descriptor.getTableName() + " where id = ?";
+    RowMapper<T> mapper = getRowMapper(clazz);
+    T obj = null;
+    long startNanos = startNanos();
     try {
-      Object obj = jdbcTemplate.queryForObject(sql, mapper, id);
-      return clazz.cast(obj);
+      obj = clazz.cast(jdbcTemplate.queryForObject(sql, mapper, id));
     } catch (EmptyResultDataAccessException e) {
+      recordQuery(clazz, "findById", sql, startNanos, 0);
       return null;
     }
+    recordQuery(clazz, "findById", sql, startNanos, 1);
+    // Do not cache what is read inside a read/write transaction. It may have uncommitted changes.
+    if (cache != null
+        && (!TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+      cache.put(cacheKey, copyColumnProperties(descriptor, obj));
+    }
+    return obj;
   }
 
   /**
    * Inserts an object. For objects which have auto increment database id, after the insert the
-   * object will get assigned the id. Also assigns createdBy, createdOn, updatedBy, updatedOn values
+   * object will get assigned the id (before the insert if the class has an IdStrategy other than
+   * SERIAL, see withIdStrategy()). Also assigns createdBy, createdOn, updatedBy, updatedOn values
    * if these properties exist for the object
    *
    * @param pojo - The object to be saved
    */
   public void insert(Object pojo) {
-    String tableName = convertCamelToSnakeCase(pojo.getClass().getSimpleName());
-    LocalDateTime now = LocalDateTime.now();
-    BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(pojo);
-    
-    if (createdOnPropertyName != null && bw.isReadableProperty(createdOnPropertyName)) {
-      bw.setPropertyValue(createdOnPropertyName, now);
+    EntityDescriptor descriptor = getEntityDescriptor(pojo.getClass());
+    String tableName = descriptor.getTableName();
+    Object auditOperator =
+        auditOperatorResolver != null ? auditOperatorResolver.getAuditOperator() : null;
+    setInsertAuditValues(descriptor, pojo, LocalDateTime.now(), auditOperator);
+
+    Property idProperty = descriptor.getIdProperty();
+    if (idProperty.getValue(pojo) == null) {
+      assignIds(descriptor, Collections.singletonList(pojo));
     }
-    if (createdByPropertyName != null
-        && auditOperatorResolver != null
-        && bw.isReadableProperty(createdByPropertyName)) {
-      bw.setPropertyValue(createdByPropertyName, auditOperatorResolver.getAuditOperator());
-    }
-    if (updatedOnPropertyName != null && bw.isReadableProperty(updatedOnPropertyName)) {
-      bw.setPropertyValue(updatedOnPropertyName, now);
-    }
-    if (updatedByPropertyName != null
-        && auditOperatorResolver != null
-        && bw.isReadableProperty(updatedByPropertyName)) {
-      bw.setPropertyValue(updatedByPropertyName, auditOperatorResolver.getAuditOperator());
-    }
-    if (versionPropertyName != null && bw.isReadableProperty(versionPropertyName)) {
-      bw.setPropertyValue(versionPropertyName, 1);
-    }
-
     Map<String, Object> attributes = convertToDbColumnAttributes(pojo);
-    Object idValue = bw.getPropertyValue("id");
+    Object idValue = idProperty.getValue(pojo);
 
-    SimpleJdbcInsert jdbcInsert = simpleJdbcInsertCache.get(tableName);
-    if (jdbcInsert == null) {
-      if (idValue == null) {
-        // object whose id in database is auto increment
-        if (schemaName != null) {
-          jdbcInsert =
-              new SimpleJdbcInsert(jdbcTemplate)
-                  .withSchemaName(schemaName)
-                  .withTableName(tableName)
-                  .usingGeneratedKeyColumns("id");
-        } else {
-          new SimpleJdbcInsert(jdbcTemplate)
-              .withTableName(tableName)
-              .usingGeneratedKeyColumns("id");
-        }
-      } else {
-        // object has already assigned id; ie NOT auto increment in database
-        if (schemaName != null) {
-          jdbcInsert =
-              new SimpleJdbcInsert(jdbcTemplate)
-                  .withSchemaName(schemaName)
-                  .withTableName(tableName);
-        } else {
-          jdbcInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName(tableName);
-        }
-      }
-      simpleJdbcInsertCache.put(tableName, jdbcInsert);
+    WriteBehindQueue queue = idValue != null ? getWriteBehindQueue() : null;
+    if (queue != null) {
+      queue.add("insert", getInsertSql(descriptor), descriptor, attributes, idValue, false);
+      takeSnapshot(descriptor, pojo);
+      return;
     }
+    flush();
+    SimpleJdbcInsert jdbcInsert = getSimpleJdbcInsert(tableName, idValue == null);
 
+    long startNanos = startNanos();
     if (idValue == null) {
       // object whose id in database is auto increment
       Number idNumber = jdbcInsert.executeAndReturnKey(attributes);
       // set id on pojo
-      Class<?> clazz = bw.getPropertyType("id");
+      Class<?> clazz = idProperty.getType();
       if ("Integer".equals(clazz.getSimpleName())) {
-        bw.setPropertyValue("id", idNumber.intValue());
+        idProperty.setValue(pojo, idNumber.intValue());
       } else {
         // id is of type long
-        bw.setPropertyValue("id", idNumber.longValue());
+        idProperty.setValue(pojo, idNumber.longValue());
       }
     } else {
       // object with id that is NOT auto increment in database
       jdbcInsert.execute(attributes);
     }
+    recordUpdate(descriptor.getClazz(), "insert", jdbcInsert.getInsertString(), startNanos, 1);
+    takeSnapshot(descriptor, pojo);
   }
 
   /**
-   * Updates object. Will also set updatedBy and updatedOn values if these properties exist for the
-   * object. if 'version' property exists for object throws an OptimisticLockingException if fails
-   * to update the record
+   * Inserts a list of objects using jdbc batches. All objects in the list have to be of the same
+   * type. Objects without an id get assigned the database generated id, in list order. Also assigns
+   * createdBy, createdOn, updatedBy, updatedOn values if these properties exist for the objects.
    *
-   * @param pojo - object to be updated
-   * @return 0 if no records were updated
+   * @param pojos - The list of objects to be saved
    */
-  public Integer update(Object pojo) {
-    String tableName = convertCamelToSnakeCase(pojo.getClass().getSimpleName());
-    String updateSql = updateSqlCache.get(tableName);
-    if (updateSql == null) {
-      updateSql = buildUpdateSql(pojo);
+  public void insertAll(List<?> pojos) {
+    if (Util.isEmpty(pojos)) {
+      return;
     }
-
+    EntityDescriptor descriptor = getEntityDescriptor(pojos.get(0).getClass());
+    Property idProperty = descriptor.getIdProperty();
     LocalDateTime now = LocalDateTime.now();
-    BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(pojo);
-
-    if (updatedOnPropertyName != null && bw.isReadableProperty(updatedOnPropertyName)) {
-      bw.setPropertyValue(updatedOnPropertyName, now);
+    Object auditOperator =
+        auditOperatorResolver != null ? auditOperatorResolver.getAuditOperator() : null;
+
+    List<Object> autoIncrementIdPojos = new ArrayList<>();
+    List<Object> assignedIdPojos = new ArrayList<>();
+    for (Object pojo : pojos) {
+      if (pojo.getClass() != descriptor.getClazz()) {
+        throw new IllegalArgumentException(
+            "insertAll() expects objects of the same type. Found "
+                + descriptor.getClazz().getSimpleName()
+                + " and "
+                + pojo.getClass().getSimpleName());
+      }
+      setInsertAuditValues(descriptor, pojo, now, auditOperator);
+      if (idProperty.getValue(pojo) == null) {
+        autoIncrementIdPojos.add(pojo);
+      } else {
+        assignedIdPojos.add(pojo);
+      }
+    }
+    if (assignIds(descriptor, autoIncrementIdPojos)) {
+      assignedIdPojos = new ArrayList<>(pojos);
+      autoIncrementIdPojos.clear();
     }
-    if (updatedByPropertyName != null
-        && auditOperatorResolver != null
-        && bw.isReadableProperty(updatedByPropertyName)) {
-      bw.setPropertyValue(updatedByPropertyName, auditOperatorResolver.getAuditOperator());
+    batchInsert(descriptor, autoIncrementIdPojos, true);
+    batchInsert(descriptor, assignedIdPojos, false);
+    for (Object pojo : pojos) {
+      takeSnapshot(descriptor, pojo);
     }
+  }
 
-    Map<String, Object> attributes = convertObjectToMap(pojo);
-    // if object has property version throw OptimisticLockingException
-    // update fails. version gets incremented
-    if (versionPropertyName != null && bw.isReadableProperty(versionPropertyName)) {
-      Integer versionVal = (Integer) bw.getPropertyValue(versionPropertyName);
-      if (versionVal == null) {
-        throw new RuntimeException(
-            versionPropertyName
-                + " cannot be null when updating "
-                + pojo.getClass().getSimpleName());
-      } else {
-        attributes.put("incrementedVersion", versionVal++);
+  /**
+   * Loads the objects into the table of the class using PostgreSQL 'copy ... from stdin' (csv
+   * format). Much faster than insertAll() for large numbers of records. The objects are read from
+   * the iterator and sent to the database in chunks so the whole data set is never held in memory.
+   * Assigns createdBy, createdOn, updatedBy, updatedOn and version values if these properties exist
+   * for the objects.
+   *
+   * <p>If the first object does not have an id, the id column is left to the database and the
+   * generated ids are NOT assigned to the objects. All the objects have to be of the same type and
+   * either all have an id or none.
+   *
+   * @param clazz - the class of the objects
+   * @param pojos - iterator of the objects to be loaded
+   * @return the number of records loaded
+   */
+  public <T> long copyIn(Class<T> clazz, Iterator<T> pojos) {
+    if (!pojos.hasNext()) {
+      return 0;
+    }
+    EntityDescriptor descriptor = getEntityDescriptor(clazz);
+    // tables like time_entry do not have an id
+    Property idProperty = descriptor.getProperty("id");
+    T first = pojos.next();
+    boolean hasId = idProperty == null || idProperty.getValue(first) != null;
+
+    List<Property> copyProperties = new ArrayList<>();
+    List<String> columnNames = new ArrayList<>();
+    for (String columnName : getDbColumnNames(descriptor.getTableName())) {
+      if (!hasId && "id".equals(columnName)) {
+        continue;
       }
-      int cnt = npJdbcTemplate.update(updateSql, attributes);
-      if (cnt == 0) {
-        throw new OptimisticLockingException(
-            "Update failed for "
-                + pojo.getClass().getSimpleName()
-                + " for id:"
-                + attributes.get("id")
-                + " and "
-                + versionPropertyName
-                + ":"
-                + attributes.get(versionPropertyName));
+      Property property = descriptor.getPropertyByColumnName(columnName);
+      if (property != null && property.isReadable()) {
+        copyProperties.add(property);
+        columnNames.add(columnName);
       }
-      return cnt;
-    } else {
-      return npJdbcTemplate.update(updateSql, attributes);
     }
+    flush();
+    String sql =
+        "copy "
+            + descriptor.getTableName()
+            + " ("
+            + String.join(", ", columnNames)
+            + ") from stdin with (format csv, encoding 'UTF8')";
+
+    LocalDateTime now = LocalDateTime.now();
+    Object auditOperator =
+        auditOperatorResolver != null ? auditOperatorResolver.getAuditOperator() : null;
+    long startNanos = startNanos();
+    Long count =
+        jdbcTemplate.execute(
+            (ConnectionCallback<Long>)
+                con -> {
+                  CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+                  try {
+                    StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+                    T pojo = first;
+                    while (pojo != null) {
+                      if (pojo.getClass() != clazz) {
+                        throw new IllegalArgumentException(
+                            "copyIn() expects objects of type "
+                                + clazz.getSimpleName()
+                                + ". Found "
+                                + pojo.getClass().getSimpleName());
+                      }
+                      if (idProperty != null && (idProperty.getValue(pojo) != null) != hasId) {
+                        throw new IllegalArgumentException(
+                            "copyIn() expects all the "
+                                + clazz.getSimpleName()
+                                + " objects to have an id or none");
+                      }
+                      setInsertAuditValues(descriptor, pojo, now, auditOperator);
+                      appendCopyRow(buffer, copyProperties, pojo);
+                      if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        writeToCopy(copyIn, buffer);
+                      }
+                      pojo = pojos.hasNext() ? pojos.next() : null;
+                    }
+                    writeToCopy(copyIn, buffer);
+                    return copyIn.endCopy();
+                  } finally {
+                    if (copyIn.isActive()) {
+                      copyIn.cancelCopy();
+                    }
+                  }
+                });
+    recordUpdate(clazz, "copyIn", sql, startNanos, (int) Math.min(count, Integer.MAX_VALUE));
+    return count;
+  }
+
+  /**
+   * Updates object. Will also set updatedBy and updatedOn values if these properties exist for the
+   * object. if 'version' property exists for object throws an OptimisticLockingException if fails
+   * to update the record
+   *
+   * <p>For dirty tracking classes (see withDirtyTracking()) only the changed columns are updated
+   * and an object which did not change is not updated at all.
+   *
+   * @param pojo - object to be updated
+   * @return 0 if no records were updated
+   */
+  public Integer update(Object pojo) {
+    EntityDescriptor descriptor = getEntityDescriptor(pojo.getClass());
+    Map<String, Object> snapshot = getSnapshot(descriptor, pojo);
+    if (snapshot == null) {
+      return executeUpdate(descriptor, getUpdateSql(descriptor), pojo);
+    }
+    String[] changedPropertyNames = getChangedPropertyNames(descriptor, pojo, snapshot);
+    if (changedPropertyNames.length == 0) {
+      return 0;
+    }
+    Integer cnt = executeUpdate(descriptor, getUpdateSql(descriptor, changedPropertyNames), pojo);
+    takeSnapshot(descriptor, pojo);
+    return cnt;
   }
 
   /**
@@ -290,88 +698,187 @@ public class JdbcUtil {
    * @return 0 if no records were updated
    */
   public Integer update(Object pojo, String... propertyNames) {
-    String tableName = convertCamelToSnakeCase(pojo.getClass().getSimpleName());
-    BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(pojo);
-    // cachekey ex: className-propertyName1-propertyName2
-    String cacheKey = tableName + "-" + String.join("-", propertyNames);
-    String updateSql = updateSqlCache.get(cacheKey);
-    if (updateSql == null) {
-      StringBuilder sqlBuilder = new StringBuilder("update ");
-      sqlBuilder.append(tableName);
-      sqlBuilder.append(" set ");
+    EntityDescriptor descriptor = getEntityDescriptor(pojo.getClass());
+    Integer cnt = executeUpdate(descriptor, getUpdateSql(descriptor, propertyNames), pojo);
+    updateSnapshot(descriptor, pojo, propertyNames);
+    return cnt;
+  }
 
-      List<String> dbColumnNameList = new ArrayList<>();
-      for (String propertyName : propertyNames) {
-        dbColumnNameList.add(convertCamelToSnakeCase(propertyName));
-      }
-      boolean first = true;
-      for (String columnName : dbColumnNameList) {
-        if (!first) {
-          sqlBuilder.append(", ");
-        } else {
-          first = false;
-        }
-        sqlBuilder.append(columnName);
-        sqlBuilder.append(" = :");
+  /**
+   * Updates a list of objects using jdbc batches. All objects in the list have to be of the same
+   * type. Will also set updatedBy and updatedOn values if these properties exist for the objects.
+   * If 'version' property exists for the objects throws an OptimisticLockingException listing the
+   * ids of the records which failed to update.
+   *
+   * <p>For dirty tracking classes (see withDirtyTracking()) only the changed columns are updated.
+   * Objects with the same changed columns are batched together and objects which did not change
+   * are not updated at all.
+   *
+   * @param pojos - objects to be updated
+   * @return the number of records updated
+   */
+  public Integer updateAll(List<?> pojos) {
+    if (Util.isEmpty(pojos)) {
+      return 0;
+    }
+    EntityDescriptor descriptor = getEntityDescriptor(pojos.get(0).getClass());
+    if (!dirtyTrackingClasses.contains(descriptor.getClazz())) {
+      return executeBatchUpdate(descriptor, getUpdateSql(descriptor), pojos);
+    }
 
-        sqlBuilder.append(convertSnakeToCamelCase(columnName));
-      }
-      // the set assignment for the incremented version
-      if (versionPropertyName != null && bw.isReadableProperty(versionPropertyName)) {
-        sqlBuilder.append(", ").append(versionPropertyName).append(" = :incrementedVersion");
+    // Map key - the changed property names. Empty list for objects without a snapshot
+    //     value - the objects with those changes
+    Map<List<String>, List<Object>> changeGroups = new LinkedHashMap<>();
+    for (Object pojo : pojos) {
+      Map<String, Object> snapshot = getSnapshot(descriptor, pojo);
+      List<String> key = Collections.emptyList();
+      if (snapshot != null) {
+        key = Arrays.asList(getChangedPropertyNames(descriptor, pojo, snapshot));
+        if (key.isEmpty()) {
+          continue;
+        }
       }
-      // the where clause
-      sqlBuilder.append(" where id = :id");
-      if (versionPropertyName != null && bw.isReadableProperty(versionPropertyName)) {
-        sqlBuilder
-            .append(" and ")
-            .append(versionPropertyName)
-            .append(" = :")
-            .append(versionPropertyName);
+      changeGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(pojo);
+    }
+    int total = 0;
+    for (Map.Entry<List<String>, List<Object>> entry : changeGroups.entrySet()) {
+      String updateSql =
+          entry.getKey().isEmpty()
+              ? getUpdateSql(descriptor)
+              : getUpdateSql(descriptor, entry.getKey().toArray(new String[0]));
+      total += executeBatchUpdate(descriptor, updateSql, entry.getValue());
+      for (Object pojo : entry.getValue()) {
+        takeSnapshot(descriptor, pojo);
       }
+    }
+    return total;
+  }
 
-      updateSql = sqlBuilder.toString();
-      updateSqlCache.put(cacheKey, updateSql);
+  /**
+   * Updates the propertyNames of a list of objects using jdbc batches. All objects in the list
+   * have to be of the same type. Will also set updatedBy and updatedOn values if these properties
+   * exist for the objects. If 'version' property exists for the objects throws an
+   * OptimisticLockingException listing the ids of the records which failed to update.
+   *
+   * @param pojos - objects to be updated
+   * @param propertyNames - array of property names that should be updated
+   * @return the number of records updated
+   */
+  public Integer updateAll(List<?> pojos, String... propertyNames) {
+    if (Util.isEmpty(pojos)) {
+      return 0;
     }
+    EntityDescriptor descriptor = getEntityDescriptor(pojos.get(0).getClass());
+    Integer total =
+        executeBatchUpdate(descriptor, getUpdateSql(descriptor, propertyNames), pojos);
+    for (Object pojo : pojos) {
+      updateSnapshot(descriptor, pojo, propertyNames);
+    }
+    return total;
+  }
 
-    LocalDateTime now = LocalDateTime.now();
-    if (updatedOnPropertyName != null && bw.isReadableProperty(updatedOnPropertyName)) {
-      bw.setPropertyValue(updatedOnPropertyName, now);
+  /**
+   * Inserts the object or, if a record with the same values for the conflictColumns already
+   * exists, updates that record in the same statement (PostgreSQL 'insert ... on conflict do
+   * update'). Works like insert() for a new record. For an existing record all the columns other
+   * than id, the conflict columns, createdOn and createdBy are updated and the version gets
+   * incremented. The object gets assigned the id, createdOn, createdBy and version of the
+   * database record.
+   *
+   * <p>If the object has a 'version' property with a value, the existing record is only updated if
+   * its version matches. Otherwise throws OptimisticLockingException.
+   *
+   * @param pojo - the object to be inserted or updated
+   * @param conflictColumns - property names of the columns of the unique constraint. Ex:
+   *     "personId", "projectId". Defaults to id
+   * @return 1 if the record was inserted, 0 if an existing record was updated
+   */
+  public Integer upsert(Object pojo, String... conflictColumns) {
+    return upsertAll(Collections.singletonList(pojo), conflictColumns);
+  }
+
+  /**
+   * Upserts a list of objects using jdbc batches. All objects in the list have to be of the same
+   * type. See upsert().
+   *
+   * @param pojos - the objects to be inserted or updated
+   * @param conflictColumns - property names of the columns of the unique constraint. Ex:
+   *     "personId", "projectId". Defaults to id
+   * @return the number of records inserted. Existing records which got updated are not counted
+   */
+  public Integer upsertAll(List<?> pojos, String... conflictColumns) {
+    if (Util.isEmpty(pojos)) {
+      return 0;
     }
-    if (updatedByPropertyName != null
-        && auditOperatorResolver != null
-        && bw.isReadableProperty(updatedByPropertyName)) {
-      bw.setPropertyValue(updatedByPropertyName, auditOperatorResolver.getAuditOperator());
+    EntityDescriptor descriptor = getEntityDescriptor(pojos.get(0).getClass());
+    List<Object> autoIncrementIdPojos = new ArrayList<>();
+    List<Object> assignedIdPojos = new ArrayList<>();
+    partitionByAssignedId(descriptor, pojos, "upsertAll", autoIncrementIdPojos, assignedIdPojos);
+    return batchUpsert(descriptor, autoIncrementIdPojos, true, conflictColumns)
+        + batchUpsert(descriptor, assignedIdPojos, false, conflictColumns);
+  }
+
+  /**
+   * Inserts the object unless a record with the same values for the conflictColumns already exists
+   * (PostgreSQL 'insert ... on conflict do nothing'). Unlike upsert() the existing record is not
+   * touched, so use it when an existing record is an error: 0 means the record already exists.
+   * Otherwise works like insert() and the object gets assigned the id of the new record.
+   *
+   * @param pojo - the object to be inserted
+   * @param conflictColumns - property names of the columns of the unique constraint. Ex:
+   *     "personId", "startDate". Defaults to id
+   * @return 1 if the record was inserted, 0 if a record with the same conflictColumns exists
+   */
+  public Integer insertIfAbsent(Object pojo, String... conflictColumns) {
+    return insertAllIfAbsent(Collections.singletonList(pojo), conflictColumns);
+  }
+
+  /**
+   * Inserts the objects which do not conflict with an existing record using jdbc batches. All
+   * objects in the list have to be of the same type. See insertIfAbsent(). Objects which were not
+   * inserted do not get an id assigned.
+   *
+   * @param pojos - the objects to be inserted
+   * @param conflictColumns - property names of the columns of the unique constraint. Ex:
+   *     "personId", "projectId". Defaults to id
+   * @return the number of records inserted
+   */
+  public Integer insertAllIfAbsent(List<?> pojos, String... conflictColumns) {
+    if (Util.isEmpty(pojos)) {
+      return 0;
     }
+    EntityDescriptor descriptor = getEntityDescriptor(pojos.get(0).getClass());
+    List<Object> autoIncrementIdPojos = new ArrayList<>();
+    List<Object> assignedIdPojos = new ArrayList<>();
+    partitionByAssignedId(
+        descriptor, pojos, "insertAllIfAbsent", autoIncrementIdPojos, assignedIdPojos);
+    return batchInsertIfAbsent(descriptor, autoIncrementIdPojos, true, conflictColumns)
+        + batchInsertIfAbsent(descriptor, assignedIdPojos, false, conflictColumns);
+  }
 
-    Map<String, Object> attributes = convertObjectToMap(pojo);
-    // if object has property version throw OptimisticLockingException
-    // update fails. The version gets incremented
-    if (versionPropertyName != null && bw.isReadableProperty(versionPropertyName)) {
-      Integer versionVal = (Integer) bw.getPropertyValue(versionPropertyName);
-      if (versionVal == null) {
-        throw new RuntimeException(
-            versionPropertyName
-                + " cannot be null when updating "
+  // splits the objects into the ones without an id and the ones with an assigned id. All of them
+  // have to be of the class of the descriptor
+  private void partitionByAssignedId(
+      EntityDescriptor descriptor,
+      List<?> pojos,
+      String methodName,
+      List<Object> autoIncrementIdPojos,
+      List<Object> assignedIdPojos) {
+    Property idProperty = descriptor.getIdProperty();
+    for (Object pojo : pojos) {
+      if (pojo.getClass() != descriptor.getClazz()) {
+        throw new IllegalArgumentException(
+            methodName
+                + "() expects objects of the same type. Found "
+                + descriptor.getClazz().getSimpleName()
+                + " and "
                 + pojo.getClass().getSimpleName());
-      } else {
-        attributes.put("incrementedVersion", versionVal++);
       }
-      int cnt = npJdbcTemplate.update(updateSql, attributes);
-      if (cnt == 0) {
-        throw new OptimisticLockingException(
-            "Update failed for "
-                + pojo.getClass().getSimpleName()
-                + " id:"
-                + attributes.get("id")
-                + " "
-                + versionPropertyName
-                + ":"
-                + attributes.get("version"));
+      if (idProperty.getValue(pojo) == null) {
+        autoIncrementIdPojos.add(pojo);
+      } else {
+        assignedIdPojos.add(pojo);
       }
-      return cnt;
-    } else {
-      return npJdbcTemplate.update(updateSql, attributes);
     }
   }
 
@@ -382,11 +889,15 @@ public class JdbcUtil {
    * @return 0 if no records were deleted
    */
   public Integer delete(Object pojo) {
-    String tableName = convertCamelToSnakeCase(pojo.getClass().getSimpleName());
-    BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(pojo);
-    String sql = "delete from " + tableName + " where id = ?";
-    Object id = bw.getPropertyValue("id");
-    return jdbcTemplate.update(sql, id);
+    flush();
+    EntityDescriptor descriptor = getEntityDescriptor(pojo.getClass());
+    String sql = "delete from " + descriptor.getTableName() + " where id = ?";
+    Object id = descriptor.getId(pojo);
+    long startNanos = startNanos();
+    int cnt = jdbcTemplate.update(sql, id);
+    recordUpdate(descriptor.getClazz(), "delete", sql, startNanos, cnt);
+    evictFromEntityCache(descriptor.getClazz(), Collections.singletonList(id));
+    return cnt;
   }
 
   /**
@@ -396,21 +907,119 @@ public class JdbcUtil {
    * @param clazz - Type of object to be deleted.
    * @return 0 if no records were deleted
    */
-  public <T> Integer deleteById(Integer id, Class<T> clazz) {
-    String tableName = convertCamelToSnakeCase(clazz.getSimpleName());
+  public <T> Integer deleteById(Object id, Class<T> clazz) {
+    flush();
+    String tableName = getEntityDescriptor(clazz).getTableName();
     String sql = "delete from " + tableName + " where id = ?";
-    return jdbcTemplate.update(sql, id);
+    long startNanos = startNanos();
+    int cnt = jdbcTemplate.update(sql, id);
+    recordUpdate(clazz, "deleteById", sql, startNanos, cnt);
+    evictFromEntityCache(clazz, Collections.singletonList(id));
+    return cnt;
   }
 
   /**
-   * Get the next sequence number for the sequence name
+   * Physically deletes the records for the ids with a single statement. The ids are sent as one
+   * array parameter ('where id = any(?)'). Throws OptimisticLockingException if the number of
+   * records deleted does not match the number of ids so that when called within a transaction the
+   * delete is all or nothing.
    *
-   * @param sequenceName - The name of the sequence
-   * @return the next sequence number
+   * @param clazz - Type of objects to be deleted.
+   * @param ids - Ids of the objects to be deleted
+   * @return the number of records deleted
+   */
+  public <T> Integer deleteByIds(Class<T> clazz, Collection<?> ids) {
+    if (Util.isEmpty(ids)) {
+      return 0;
+    }
+    flush();
+    EntityDescriptor descriptor = getEntityDescriptor(clazz);
+    Set<Object> uniqueIds = new LinkedHashSet<>(ids);
+    uniqueIds.remove(null);
+    String sql = "delete from " + descriptor.getTableName() + " where id = any(?)";
+    String arrayTypeName = getSqlArrayTypeName(descriptor.getIdProperty().getType());
+    long startNanos = startNanos();
+    int cnt =
+        jdbcTemplate.update(
+            sql, ps -> ps.setArray(1, createSqlArray(ps, arrayTypeName, uniqueIds)));
+    recordUpdate(clazz, "deleteByIds", sql, startNanos, cnt);
+    evictFromEntityCache(clazz, uniqueIds);
+    if (cnt != uniqueIds.size()) {
+      throw new OptimisticLockingException(
+          "Delete failed for "
+              + clazz.getSimpleName()
+              + ". Expected to delete "
+              + uniqueIds.size()
+              + " records but deleted "
+              + cnt);
+    }
+    return cnt;
+  }
+
+  /**
+   * Physically deletes the objects from the database with a single statement. See deleteByIds()
+   *
+   * @param pojos - Objects to be deleted. All objects have to be of the same type.
+   * @return the number of records deleted
+   */
+  public Integer deleteAll(List<?> pojos) {
+    if (Util.isEmpty(pojos)) {
+      return 0;
+    }
+    EntityDescriptor descriptor = getEntityDescriptor(pojos.get(0).getClass());
+    Property idProperty = descriptor.getIdProperty();
+    List<Object> ids = new ArrayList<>();
+    for (Object pojo : pojos) {
+      ids.add(idProperty.getValue(pojo));
+    }
+    return deleteByIds(descriptor.getClazz(), ids);
+  }
+
+  /**
+   * Sends the statements queued in write behind mode (see withWriteBehind()) to the database. Call
+   * before running sql with JdbcTemplate which needs to see the queued changes. Does nothing when
+   * there is nothing queued.
+   */
+  public void flush() {
+    if (!writeBehind) {
+      return;
+    }
+    WriteBehindQueue queue = (WriteBehindQueue) TransactionSynchronizationManager.getResource(this);
+    if (queue == null || queue.batches.isEmpty()) {
+      return;
+    }
+    List<QueuedBatch> batches = new ArrayList<>(queue.batches);
+    queue.batches.clear();
+    for (QueuedBatch batch : batches) {
+      executeQueuedBatch(batch);
+    }
+  }
+
+  /**
+   * Get the next sequence number for the sequence name
+   *
+   * @param sequenceName - The name of the sequence
+   * @return the next sequence number
    */
   public Integer getNextSequence(String sequenceName) {
-    String sql = "select nextval('" + sequenceName + "')";
-    return jdbcTemplate.queryForObject(sql, Integer.class);
+    return Math.toIntExact(getNextSequenceValues(sequenceName, 1)[0]);
+  }
+
+  /**
+   * Get the next sequence numbers for the sequence name. Values are taken from the in memory pool
+   * of the sequence first and the rest are fetched with a single query. See
+   * withSequenceBlockSize()
+   *
+   * @param sequenceName - The name of the sequence
+   * @param count - number of sequence numbers needed
+   * @return list of sequence numbers
+   */
+  public List<Integer> getNextSequences(String sequenceName, int count) {
+    List<Integer> values = new ArrayList<>(count);
+    for (long value : getNextSequenceValues(sequenceName, count)) {
+      values.add(Math.toIntExact(value));
+    }
+    return values;
   }
 
   /**
@@ -420,10 +1029,14 @@ public class JdbcUtil {
    * @return List of objects
    */
   public <T> List<T> findAll(Class<T> clazz) {
-    String tableName = convertCamelToSnakeCase(clazz.getSimpleName());
+    String tableName = getEntityDescriptor(clazz).getTableName();
     String sql = "select * from " + tableName;
-    RowMapper<T> mapper = BeanPropertyRowMapper.newInstance(clazz);
-    return jdbcTemplate.query(sql, mapper);
+    RowMapper<T> mapper = getRowMapper(clazz);
+    flush();
+    long startNanos = startNanos();
+    List<T> list = jdbcTemplate.query(sql, mapper);
+    recordQuery(clazz, "findAll", sql, startNanos, list.size());
+    return list;
   }
 
   /**
@@ -433,10 +1046,261 @@ public class JdbcUtil {
    * @return List of objects
    */
   public <T> List<T> findAll(Class<T> clazz, String orderByClause) {
-    String tableName = convertCamelToSnakeCase(clazz.getSimpleName());
+    String tableName = getEntityDescriptor(clazz).getTableName();
     String sql = "select * from " + tableName + " " + orderByClause;
-    RowMapper<T> mapper = BeanPropertyRowMapper.newInstance(clazz);
-    return jdbcTemplate.query(sql, mapper);
+    RowMapper<T> mapper = getRowMapper(clazz);
+    flush();
+    long startNanos = startNanos();
+    List<T> list = jdbcTemplate.query(sql, mapper);
+    recordQuery(clazz, "findAll", sql, startNanos, list.size());
+    return list;
+  }
+
+  /**
+   * findById() on the async executor. See supplyAsync()
+   *
+   * @param id - Id of object
+   * @param clazz - Class of object
+   * @return future of the object. null if not found
+   */
+  public <T> CompletableFuture<T> findByIdAsync(Object id, Class<T> clazz) {
+    return supplyAsync(() -> findById(id, clazz));
+  }
+
+  /**
+   * findAll() on the async executor. See supplyAsync()
+   *
+   * @param clazz - Type of object
+   * @return future of the list of objects
+   */
+  public <T> CompletableFuture<List<T>> findAllAsync(Class<T> clazz) {
+    return supplyAsync(() -> findAll(clazz));
+  }
+
+  /**
+   * findAll() on the async executor. See supplyAsync()
+   *
+   * @param clazz - Type of object
+   * @param orderByClause - the order by clause
+   * @return future of the list of objects
+   */
+  public <T> CompletableFuture<List<T>> findAllAsync(Class<T> clazz, String orderByClause) {
+    return supplyAsync(() -> findAll(clazz, orderByClause));
+  }
+
+  /**
+   * Runs the query on the executor configured with withAsyncExecutor() so independent queries can
+   * run at the same time. The query does not run in the transaction of the caller (it is on another
+   * thread) and does not see changes queued by write behind, so use it for reads which do not
+   * depend on writes of the current transaction.
+   *
+   * @param query - the query
+   * @return future of the query result
+   */
+  public <T> CompletableFuture<T> supplyAsync(Supplier<T> query) {
+    if (asyncExecutor == null) {
+      throw new IllegalStateException("No async executor configured. See withAsyncExecutor()");
+    }
+    return CompletableFuture.supplyAsync(query, asyncExecutor);
+  }
+
+  /**
+   * Runs a query written by a dao and records it in the statement metrics and listeners (see
+   * withMeterRegistry(), withStatementListener()) with operation 'query'. Rows returned is the
+   * size of a Collection result, 0 for null and 1 for any other result. Statements queued in write
+   * behind mode are flushed first so the query sees them.
+   *
+   * <pre>
+   * return timedQuery(Timesheet.class, "getMyTimesheets", () -> jdbcTemplate.query(sql, ..));
+   * </pre>
+   *
+   * @param clazz - the entity the query is for. Used as the entity tag
+   * @param statementName - name of the statement. Used as the statement tag
+   * @param query - runs the query
+   * @return the result of the query
+   */
+  public <T> T timedQuery(Class<?> clazz, String statementName, Supplier<T> query) {
+    flush();
+    if (statementListeners.length == 0) {
+      return query.get();
+    }
+    long startNanos = System.nanoTime();
+    T result = query.get();
+    int rows = 0;
+    if (result instanceof Collection) {
+      rows = ((Collection<?>) result).size();
+    } else if (result != null) {
+      rows = 1;
+    }
+    notifyStatementListeners(clazz, "query", statementName, true, false, startNanos, rows);
+    return result;
+  }
+
+  /**
+   * Runs an insert/update/delete written by a dao and records it in the statement metrics and
+   * listeners (see withMeterRegistry(), withStatementListener()) with operation 'update'. Rows
+   * affected is taken from a Number result or the sum of the counts of a batch result (int[] or
+   * int[][]). Statements queued in write behind mode are flushed first so the order of the writes
+   * is kept.
+   *
+   * @param clazz - the entity the statement is for. Used as the entity tag
+   * @param statementName - name of the statement. Used as the statement tag
+   * @param update - runs the statement
+   * @return the result of the statement
+   */
+  public <T> T timedUpdate(Class<?> clazz, String statementName, Supplier<T> update) {
+    flush();
+    if (statementListeners.length == 0) {
+      return update.get();
+    }
+    long startNanos = System.nanoTime();
+    T result = update.get();
+    notifyStatementListeners(
+        clazz, "update", statementName, true, true, startNanos, getAffectedRows(result));
+    return result;
+  }
+
+  /**
+   * Returns a Stream of objects for the sql. Unlike the list returning methods, rows are fetched
+   * from the database in batches of fetchSize as the stream is consumed, so memory use does not
+   * depend on the number of records. Use for exports and batch jobs over large tables.
+   *
+   * <p>With PostgreSQL the driver only uses a server side cursor when autocommit is off, so when
+   * there is no existing transaction the stream runs in its own read only transaction which ends
+   * when the stream is closed. The stream holds a database connection till then, so always use it
+   * in a try-with-resources block.
+   *
+   * <pre>
+   * try (Stream&lt;TimeEntry&gt; stream = jdbcUtil.stream(TimeEntry.class, sql, params, 500)) {
+   *   stream.forEach(...);
+   * }
+   * </pre>
+   *
+   * @param clazz - Type of object
+   * @param sql - the sql. Can have named parameters. ex: select * from time_entry where ..
+   * @param params - the named parameter values. Can be null
+   * @param fetchSize - number of rows fetched from the database in one round trip
+   * @return Stream of objects. Needs to be closed.
+   */
+  public <T> Stream<T> stream(Class<T> clazz, String sql, Map<String, ?> params, int fetchSize) {
+    return stream(clazz, sql, new MapSqlParameterSource(params), fetchSize);
+  }
+
+  /**
+   * Same as stream() above with the parameters as an SqlParameterSource.
+   *
+   * @param clazz - Type of object
+   * @param sql - the sql. Can have named parameters.
+   * @param paramSource - the named parameter values.
+   * @param fetchSize - number of rows fetched from the database in one round trip
+   * @return Stream of objects. Needs to be closed.
+   */
+  public <T> Stream<T> stream(
+      Class<T> clazz, String sql, SqlParameterSource paramSource, int fetchSize) {
+    if (fetchSize < 1) {
+      throw new IllegalArgumentException("fetchSize has to be greater than 0");
+    }
+    ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+    String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+    Object[] values = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+    PreparedStatementCreator psc =
+        new PreparedStatementCreatorFactory(
+                sqlToUse, NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource))
+            .newPreparedStatementCreator(values);
+
+    flush();
+    long startNanos = startNanos();
+    DataSource dataSource = jdbcTemplate.getDataSource();
+    Connection con = DataSourceUtils.getConnection(dataSource);
+    StreamCursor cursor = new StreamCursor(dataSource, con);
+    try {
+      cursor.begin();
+      PreparedStatement ps = psc.createPreparedStatement(con);
+      cursor.ps = ps;
+      ps.setFetchSize(fetchSize);
+      cursor.rs = ps.executeQuery();
+    } catch (SQLException e) {
+      cursor.close();
+      throw jdbcTemplate.getExceptionTranslator().translate("stream", sql, e);
+    } catch (RuntimeException e) {
+      cursor.close();
+      throw e;
+    }
+
+    RowMapper<T> mapper = getRowMapper(clazz);
+    Spliterator<T> spliterator =
+        new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+          @Override
+          public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+              if (!cursor.rs.next()) {
+                return false;
+              }
+              action.accept(mapper.mapRow(cursor.rs, cursor.rowCount++));
+              return true;
+            } catch (SQLException e) {
+              throw jdbcTemplate.getExceptionTranslator().translate("stream", sql, e);
+            }
+          }
+        };
+    // recorded when the stream is closed. The time includes consuming the stream
+    return StreamSupport.stream(spliterator, false)
+        .onClose(
+            () -> {
+              cursor.close();
+              recordQuery(clazz, "stream", sql, startNanos, cursor.rowCount);
+            });
+  }
+
+  /**
+   * Holds the jdbc resources of a stream() and releases them when the stream is closed. If the
+   * connection is not part of an existing transaction, autocommit is turned off (needed for
+   * PostgreSQL to use a cursor) and the connection is made read only till the stream is closed.
+   */
+  private static class StreamCursor {
+    private final DataSource dataSource;
+    private final Connection con;
+    private PreparedStatement ps;
+    private ResultSet rs;
+    private int rowCount;
+    private boolean ownTransaction;
+    private boolean previousAutoCommit;
+    private boolean previousReadOnly;
+
+    StreamCursor(DataSource dataSource, Connection con) {
+      this.dataSource = dataSource;
+      this.con = con;
+    }
+
+    void begin() throws SQLException {
+      if (!DataSourceUtils.isConnectionTransactional(con, dataSource) && con.getAutoCommit()) {
+        previousAutoCommit = true;
+        previousReadOnly = con.isReadOnly();
+        con.setAutoCommit(false);
+        con.setReadOnly(true);
+        ownTransaction = true;
+      }
+    }
+
+    void close() {
+      JdbcUtils.closeResultSet(rs);
+      JdbcUtils.closeStatement(ps);
+      if (ownTransaction) {
+        try {
+          // read only so nothing to commit. Ends the transaction and releases the cursor
+          con.rollback();
+          con.setReadOnly(previousReadOnly);
+          con.setAutoCommit(previousAutoCommit);
+        } catch (SQLException e) {
+          throw new RuntimeException(e);
+        } finally {
+          ownTransaction = false;
+          DataSourceUtils.releaseConnection(con, dataSource);
+        }
+      } else {
+        DataSourceUtils.releaseConnection(con, dataSource);
+      }
+    }
   }
 
   public <T, U> void toOne(T mainObj, String relationshipPropertyName, Class<U> relationshipClazz) {
@@ -447,40 +1311,35 @@ public class JdbcUtil {
 
   public <T, U> void toOne(
       List<T> mainObjList, String relationshipPropertyName, Class<U> relationshipClazz) {
-    String tableName = convertCamelToSnakeCase(relationshipClazz.getSimpleName());
+    EntityDescriptor relatedDescriptor = getEntityDescriptor(relationshipClazz);
+    String tableName = relatedDescriptor.getTableName();
     if (Util.isNotEmpty(mainObjList)) {
       String joinColumnName = tableName + "_id";
       String joinPropertyName = convertSnakeToCamelCase(joinColumnName);
+      EntityDescriptor mainDescriptor = getEntityDescriptor(mainObjList.get(0).getClass());
+      Property joinProperty = mainDescriptor.getRequiredProperty(joinPropertyName);
+      Property relationshipProperty = mainDescriptor.getRequiredProperty(relationshipPropertyName);
 
-      List<Integer> allColumnIds = new ArrayList<>();
+      // unique join ids
+      LongObjectMap<Object> joinIdMap = new LongObjectMap<>(mainObjList.size());
+      List<Object> uniqueIds = new ArrayList<>();
       for (T mainObj : mainObjList) {
-        BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);
-        Integer joinPropertyValue = (Integer) bw.getPropertyValue(joinPropertyName);
-        if (joinPropertyValue != null && joinPropertyValue > 0) {
-          allColumnIds.add((Integer) bw.getPropertyValue(joinPropertyName));
+        Object joinPropertyValue = joinProperty.getValue(mainObj);
+        long joinId = toLongId(joinPropertyValue);
+        if (joinId > 0 && joinIdMap.putIfAbsent(joinId, joinPropertyValue) == null) {
+          uniqueIds.add(joinPropertyValue);
         }
       }
-      List<U> list = new ArrayList<>();
-      // to avoid query being issued with large number of ids
-      // for the 'IN (:columnIds) clause the list is chunked by IN_CLAUSE_CHUNK_SIZE
-      // and multiple queries issued if needed.
-      Collection<List<Integer>> chunkedColumnIds = chunkList(allColumnIds, IN_CLAUSE_CHUNK_SIZE);
-      for (List<Integer> columnIds : chunkedColumnIds) {
-        String sql = "select * from " + tableName + " where id in (:columnIds)";
-
-        MapSqlParameterSource params = new MapSqlParameterSource("columnIds", columnIds);
-        RowMapper<U> mapper = BeanPropertyRowMapper.newInstance(relationshipClazz);
-        list.addAll(npJdbcTemplate.query(sql, params, mapper));
-      }
-      Map<Integer, U> idToObjectMap =
-          list.stream()
-              .collect(Collectors.toMap(e -> (Integer) getSimpleProperty(e, "id"), obj -> obj));
+      Property relatedIdProperty = relatedDescriptor.getIdProperty();
+      List<U> list =
+          queryByColumnIds(
+              "toOne", relationshipClazz, "id", relatedIdProperty.getType(), uniqueIds, null);
+      LongObjectMap<U> idToObjectMap = toIdMap(list, relatedIdProperty);
 
       for (T mainObj : mainObjList) {
-          BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);
-        Integer joinPropertyValue = (Integer) bw.getPropertyValue(joinPropertyName);
-        if (joinPropertyValue != null && joinPropertyValue > 0) {
-          bw.setPropertyValue(relationshipPropertyName, idToObjectMap.get(joinPropertyValue));
+        long joinId = toLongId(joinProperty.getValue(mainObj));
+        if (joinId > 0) {
+          relationshipProperty.setValue(mainObj, idToObjectMap.get(joinId));
         }
       }
     }
@@ -505,23 +1364,17 @@ public class JdbcUtil {
     try {
       List<T> list = new ArrayList<>();
       List<String> resultSetColumnNames = getResultSetColumnNames(rs);
+      MappingPlan mainObjPlan = getMappingPlan(mainObjMapper, resultSetColumnNames);
+      MappingPlan relatedObjPlan = getMappingPlan(relatedObjMapper, resultSetColumnNames);
+      int relatedObjIdIndex = getIdColumnIndex(relatedObjMapper, relatedObjPlan);
+      Property relationshipProperty =
+          mainObjPlan.getDescriptor().getRequiredProperty(relationshipPropertyName);
       while (rs.next()) {
-        T mainObj =
-            newInstance(
-                mainObjMapper.getClazz(),
-                rs,
-                mainObjMapper.getSqlColumnPrefix(),
-                resultSetColumnNames);
-        Integer relatedObjId = rs.getInt(relatedObjMapper.getSqlColumnPrefix() + "id");
-        if (relatedObjId != null && relatedObjId > 0) {
-          Object relatedObj =
-              newInstance(
-                  relatedObjMapper.getClazz(),
-                  rs,
-                  relatedObjMapper.getSqlColumnPrefix(),
-                  resultSetColumnNames);
-          BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);
-          bw.setPropertyValue(relationshipPropertyName, relatedObj);
+        T mainObj = newInstance(mainObjPlan, rs);
+        long relatedObjId = rs.getLong(relatedObjIdIndex);
+        if (relatedObjId > 0) {
+          Object relatedObj = newInstance(relatedObjPlan, rs);
+          relationshipProperty.setValue(mainObj, relatedObj);
         }
         list.add(mainObj);
       }
@@ -537,255 +1390,1602 @@ public class JdbcUtil {
       String relationshipPropertyName,
       String joinPropertyName) {
     if (Util.isNotEmpty(mainObjList) && Util.isNotEmpty(relatedObjList)) {
-      Map<Integer, U> idToObjectMap =
-          relatedObjList
-              .stream()
-              .collect(Collectors.toMap(e -> (Integer) getSimpleProperty(e, "id"), obj -> obj));
+      Property relatedIdProperty =
+          getEntityDescriptor(relatedObjList.get(0).getClass()).getIdProperty();
+      LongObjectMap<U> idToObjectMap = toIdMap(relatedObjList, relatedIdProperty);
+
+      EntityDescriptor mainDescriptor = getEntityDescriptor(mainObjList.get(0).getClass());
+      Property joinProperty = mainDescriptor.getRequiredProperty(joinPropertyName);
+      Property relationshipProperty = mainDescriptor.getRequiredProperty(relationshipPropertyName);
+      for (T mainObj : mainObjList) {
+        long joinId = toLongId(joinProperty.getValue(mainObj));
+        if (joinId > 0) {
+          relationshipProperty.setValue(mainObj, idToObjectMap.get(joinId));
+        }
+      }
+    }
+  }
+
+  public <T, U> void toMany(
+      T mainObj, String collectionPropertyName, Class<U> manySideClazz, String orderByClause) {
+    List<T> mainObjList = new ArrayList<>();
+    mainObjList.add(mainObj);
+    toMany(mainObjList, collectionPropertyName, manySideClazz, orderByClause);
+  }
 
+  /**
+   * When provided a list of one side objects populates the many side list.
+   *
+   * <p>Executes a query with 'IN' clause.
+   *
+   * @param mainObjList - the main object list
+   * @param collectionPropertyName - The collection property name on mainObj
+   * @param manySideClass - The many side class
+   * @param orderByClause - The order by clause for the many side query
+   */
+  public <T, U> void toMany(
+      List<T> mainObjList,
+      String collectionPropertyName,
+      Class<U> manySideClazz,
+      String orderByClause) {
+    EntityDescriptor manySideDescriptor = getEntityDescriptor(manySideClazz);
+    if (Util.isNotEmpty(mainObjList)) {
+      EntityDescriptor mainDescriptor = getEntityDescriptor(mainObjList.get(0).getClass());
+      Property mainIdProperty = mainDescriptor.getIdProperty();
+      LongObjectMap<Object> idMap = new LongObjectMap<>(mainObjList.size());
+      List<Object> uniqueIds = new ArrayList<>();
       for (T mainObj : mainObjList) {
-        Integer joinPropertyValue = (Integer) getSimpleProperty(mainObj, joinPropertyName);
-        if (joinPropertyValue != null && joinPropertyValue > 0) {
-            BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);
-          bw.setPropertyValue(
-              relationshipPropertyName, idToObjectMap.get(joinPropertyValue));
+        Object idVal = mainIdProperty.getValue(mainObj);
+        long id = toLongId(idVal);
+        if (id > 0) {
+          if (idMap.putIfAbsent(id, idVal) == null) {
+            uniqueIds.add(idVal);
+          }
+        } else {
+          throw new RuntimeException("id property in mainObjList cannot be null");
+        }
+      }
+
+      String joinColumnName = mainDescriptor.getTableName() + "_id";
+      List<U> manySideList =
+          queryByColumnIds(
+              "toMany",
+              manySideClazz,
+              joinColumnName,
+              mainIdProperty.getType(),
+              uniqueIds,
+              Util.isNotEmpty(orderByClause) ? orderByClause : "order by id");
+
+      if (Util.isNotEmpty(manySideList)) {
+        String joinPropertyName = convertSnakeToCamelCase(joinColumnName);
+        Property joinProperty = manySideDescriptor.getRequiredProperty(joinPropertyName);
+        Property collectionProperty = mainDescriptor.getRequiredProperty(collectionPropertyName);
+
+        // map: key - joinPropertyName, value - List of manyside for the join property
+        LongObjectMap<List<U>> mapColumnIdToManySide = groupById(manySideList, joinProperty);
+
+        // assign the manyside list to the mainobj
+        for (T mainObj : mainObjList) {
+          long idValue = toLongId(mainIdProperty.getValue(mainObj));
+          List<U> relatedList = mapColumnIdToManySide.get(idValue);
+          collectionProperty.setValue(mainObj, relatedList);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("all")
+  public <T, U> List<T> toManyMapper(
+      ResultSet rs,
+      SelectMapper<T> mainObjMapper,
+      String collectionPropertyName,
+      SelectMapper<U> relatedObjMapper) {
+    try {
+      // key - main object id, value - main object
+      LongObjectMap<T> resultMap = new LongObjectMap<>();
+      List<T> resultList = new ArrayList<>();
+      List<String> resultSetColumnNames = getResultSetColumnNames(rs);
+      MappingPlan mainObjPlan = getMappingPlan(mainObjMapper, resultSetColumnNames);
+      MappingPlan relatedObjPlan = getMappingPlan(relatedObjMapper, resultSetColumnNames);
+      int mainObjIdIndex = getIdColumnIndex(mainObjMapper, mainObjPlan);
+      int relatedObjIdIndex = getIdColumnIndex(relatedObjMapper, relatedObjPlan);
+      Property collectionProperty =
+          mainObjPlan.getDescriptor().getRequiredProperty(collectionPropertyName);
+      while (rs.next()) {
+        long mainObjId = rs.getLong(mainObjIdIndex);
+        T mainObj = resultMap.get(mainObjId);
+        if (mainObj == null) {
+          mainObj = newInstance(mainObjPlan, rs);
+          resultMap.put(mainObjId, mainObj);
+          resultList.add(mainObj);
+        }
+        long relatedObjId = rs.getLong(relatedObjIdIndex);
+        if (relatedObjId != 0) {
+          Object relatedObj = newInstance(relatedObjPlan, rs);
+          List list = (List) collectionProperty.getValue(mainObj);
+          if (list == null) {
+            list = new ArrayList<>();
+            collectionProperty.setValue(mainObj, list);
+          }
+          list.add(relatedObj);
+        }
+      }
+      return resultList;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @SuppressWarnings("all")
+  public <T, U> void toManyMerge(
+      List<T> mainObjList,
+      List<U> manySideList,
+      String collectionPropertyName,
+      String joinPropertyName) {
+    try {
+      if (Util.isNotEmpty(mainObjList) && Util.isNotEmpty(manySideList)) {
+        Property joinProperty =
+            getEntityDescriptor(manySideList.get(0).getClass())
+                .getRequiredProperty(joinPropertyName);
+        LongObjectMap<List<U>> mapColumnIdToManySide = groupById(manySideList, joinProperty);
+
+        EntityDescriptor mainDescriptor = getEntityDescriptor(mainObjList.get(0).getClass());
+        Property mainIdProperty = mainDescriptor.getIdProperty();
+        Property collectionProperty = mainDescriptor.getRequiredProperty(collectionPropertyName);
+        // assign the manyside list to the mainobj
+        for (T mainObj : mainObjList) {
+          long idValue = toLongId(mainIdProperty.getValue(mainObj));
+          List<U> relatedList = mapColumnIdToManySide.get(idValue);
+          collectionProperty.setValue(mainObj, relatedList);
+        }
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Builds a tree of objects (for example timesheet -&gt; lines -&gt; entries) from the ResultSet
+   * of a single query which joins all the levels. The ResultSet is read in one pass. Objects are
+   * identified by their 'prefix + id' column so each object is created once however many rows it
+   * appears in, and gets added to the collection of its parent. A level without an id column can
+   * only be a last level. Its object is created for every row which has a value for any of its
+   * columns.
+   *
+   * <p>The ResultSet should be ordered by the ids of the levels so that the collections are in the
+   * expected order. Each child object belongs to one parent (foreign key relationship). Sibling
+   * collections at the same level multiply the number of rows of the query so prefer a chain.
+   *
+   * @param rs - The result set
+   * @param graphMapper - The description of the tree
+   * @return List of the root objects in ResultSet order
+   */
+  @SuppressWarnings("all")
+  public <T> List<T> graphMapper(ResultSet rs, GraphMapper<T> graphMapper) {
+    try {
+      List<String> resultSetColumnNames = getResultSetColumnNames(rs);
+      List<GraphNode> nodeList = new ArrayList<>();
+      addGraphNodes(graphMapper, -1, null, resultSetColumnNames, nodeList);
+      GraphNode[] nodes = nodeList.toArray(new GraphNode[0]);
+      // the object of each node for the current row. null if the row does not have it
+      Object[] rowObjs = new Object[nodes.length];
+      List<T> resultList = new ArrayList<>();
+      while (rs.next()) {
+        for (int i = 0; i < nodes.length; i++) {
+          GraphNode node = nodes[i];
+          rowObjs[i] = null;
+          Object parentObj = null;
+          if (node.parentIndex >= 0) {
+            parentObj = rowObjs[node.parentIndex];
+            if (parentObj == null) {
+              continue;
+            }
+          }
+          Object obj;
+          if (node.identityMap != null) {
+            long id = rs.getLong(node.plan.getIdColumnIndex());
+            if (rs.wasNull()) {
+              continue;
+            }
+            obj = node.identityMap.get(id);
+            if (obj == null) {
+              obj = newInstance(node.plan, rs);
+              node.identityMap.put(id, obj);
+              addGraphObject(node, parentObj, obj, resultList);
+            }
+          } else {
+            if (!node.plan.hasNonNullValue(rs)) {
+              continue;
+            }
+            obj = newInstance(node.plan, rs);
+            addGraphObject(node, parentObj, obj, resultList);
+          }
+          rowObjs[i] = obj;
+        }
+      }
+      return resultList;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns lists for each mapper passed in as an argument. The values in the list are UNIQUE and
+   * in same order as the ResultSet values. The map key is the SqlMapper columnPrefix.
+   *
+   * @param rs - The result set
+   * @param selectMappers - The variable number of sql mappers.
+   * @return Map - key: 'sqlColumnPrefix' of sqlmapper, value - unique list
+   */
+  @SuppressWarnings("all")
+  public Map<String, List> multipleModelMapper(ResultSet rs, SelectMapper... selectMappers) {
+    try {
+      Map<String, List> resultMap = new HashMap();
+      // key - sqlColumnPrefix, value - the ids already mapped for the prefix
+      Map<String, LongHashSet> idSetMap = new HashMap<>();
+      for (SelectMapper selectMapper : selectMappers) {
+        resultMap.put(selectMapper.getSqlColumnPrefix(), new ArrayList());
+        idSetMap.put(selectMapper.getSqlColumnPrefix(), new LongHashSet());
+      }
+      List<String> resultSetColumnNames = getResultSetColumnNames(rs);
+      MappingPlan[] plans = new MappingPlan[selectMappers.length];
+      int[] idColumnIndexes = new int[selectMappers.length];
+      List[] lists = new List[selectMappers.length];
+      LongHashSet[] idSets = new LongHashSet[selectMappers.length];
+      for (int i = 0; i < selectMappers.length; i++) {
+        plans[i] = getMappingPlan(selectMappers[i], resultSetColumnNames);
+        // Mapper expects 'prefix + id' in select statement
+        idColumnIndexes[i] = getIdColumnIndex(selectMappers[i], plans[i]);
+        lists[i] = resultMap.get(selectMappers[i].getSqlColumnPrefix());
+        idSets[i] = idSetMap.get(selectMappers[i].getSqlColumnPrefix());
+      }
+      while (rs.next()) {
+        for (int i = 0; i < plans.length; i++) {
+          // each list should only have elements unique by 'id' so only the first row for an id
+          // gets mapped. A null id is treated as 0.
+          if (idSets[i].add(rs.getLong(idColumnIndexes[i]))) {
+            lists[i].add(newInstance(plans[i], rs));
+          }
         }
       }
+      return resultMap;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Generates a string which can be used in a sql select statement with all columns of the table.
+   *
+   * @param tableName - the Table name
+   * @param tableAlias - the alias being used in the sql statement for the table.
+   * @param includeCommaAtEnd - whether to include a comma at end of string
+   * @return a string for the select columns. Example if tableAlias is 'emp' returns something like:
+   *     "emp.id emp_id, emp.last_name emp_last_name, emp.first_name emp_first_name ....."
+   */
+  public String selectCols(String tableName, String tableAlias, boolean includeCommaAtEnd) {
+    List<String> dbColumnNames = getDbColumnNames(tableName);
+    StringBuilder sb = new StringBuilder();
+    for (String colName : dbColumnNames) {
+      sb.append(tableAlias)
+          .append(".")
+          .append(colName)
+          .append(" ")
+          .append(tableAlias)
+          .append("_")
+          .append(colName)
+          .append(",");
+    }
+    String str = sb.toString();
+    if (str != null) {
+      return includeCommaAtEnd ? str : str.substring(0, str.length() - 1);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Inserts the objects in jdbc batches of BATCH_SIZE.
+   *
+   * @param descriptor - The entity descriptor of the objects
+   * @param pojos - The objects to insert
+   * @param generatedId - true if the id is auto increment in the database. The generated ids get
+   *     assigned to the objects.
+   */
+  private void batchInsert(EntityDescriptor descriptor, List<Object> pojos, boolean generatedId) {
+    if (pojos.isEmpty()) {
+      return;
+    }
+    WriteBehindQueue queue = generatedId ? null : getWriteBehindQueue();
+    if (queue != null) {
+      String insertSql = getInsertSql(descriptor);
+      for (Object pojo : pojos) {
+        Object id = descriptor.getId(pojo);
+        queue.add("insertAll", insertSql, descriptor, convertToDbColumnAttributes(pojo), id, false);
+      }
+      return;
+    }
+    flush();
+    String tableName = descriptor.getTableName();
+    List<Property> insertProperties = new ArrayList<>();
+    StringBuilder columns = new StringBuilder();
+    StringBuilder placeholders = new StringBuilder();
+    for (String columnName : getDbColumnNames(tableName)) {
+      if (generatedId && "id".equals(columnName)) {
+        continue;
+      }
+      Property property = descriptor.getPropertyByColumnName(columnName);
+      if (property != null && property.isReadable()) {
+        if (!insertProperties.isEmpty()) {
+          columns.append(", ");
+          placeholders.append(", ");
+        }
+        columns.append(columnName);
+        placeholders.append("?");
+        insertProperties.add(property);
+      }
+    }
+    String sql = "insert into " + tableName + " (" + columns + ") values (" + placeholders + ")";
+
+    Property idProperty = descriptor.getIdProperty();
+    PreparedStatementCreator psc =
+        con ->
+            generatedId
+                ? con.prepareStatement(sql, new String[] {"id"})
+                : con.prepareStatement(sql);
+    PreparedStatementCallback<Object> action =
+        ps -> {
+          for (int start = 0; start < pojos.size(); start += BATCH_SIZE) {
+            List<Object> batch = pojos.subList(start, Math.min(start + BATCH_SIZE, pojos.size()));
+            for (Object pojo : batch) {
+              for (int i = 0; i < insertProperties.size(); i++) {
+                Property property = insertProperties.get(i);
+                StatementCreatorUtils.setParameterValue(
+                    ps, i + 1, property.getSqlType(), property.getValue(pojo));
+              }
+              ps.addBatch();
+            }
+            ps.executeBatch();
+            if (generatedId) {
+              // keys are returned in the same order as the batch
+              try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (Object pojo : batch) {
+                  if (!keys.next()) {
+                    throw new RuntimeException(
+                        "Database did not return the generated id for table " + tableName);
+                  }
+                  idProperty.setValue(pojo, keys.getObject(1));
+                }
+              }
+            }
+          }
+          return null;
+        };
+    long startNanos = startNanos();
+    jdbcTemplate.execute(psc, action);
+    recordUpdate(descriptor.getClazz(), "insertAll", sql, startNanos, pojos.size());
+  }
+
+  // Assigns ids to the objects (which have no id) if the class uses IdStrategy SEQUENCE_POOL or
+  // SNOWFLAKE. Returns false if the ids are left to the database.
+  private boolean assignIds(EntityDescriptor descriptor, List<Object> pojos) {
+    IdStrategy idStrategy = idStrategies.getOrDefault(descriptor.getClazz(), IdStrategy.SERIAL);
+    if (pojos.isEmpty() || idStrategy == IdStrategy.SERIAL) {
+      return false;
+    }
+    long[] ids;
+    if (idStrategy == IdStrategy.SEQUENCE_POOL) {
+      ids = getNextSequenceValues(descriptor.getTableName() + "_id_seq", pojos.size());
+    } else {
+      if (idGenerator == null) {
+        throw new IllegalStateException(
+            descriptor.getClazz().getSimpleName()
+                + " uses IdStrategy.SNOWFLAKE but no id generator is configured."
+                + " See withIdGenerator()");
+      }
+      ids = idGenerator.nextIds(pojos.size());
+    }
+    Property idProperty = descriptor.getIdProperty();
+    for (int i = 0; i < pojos.size(); i++) {
+      // converts to the type of the id property. Fails if the id does not fit (Integer etc)
+      idProperty.setValue(pojos.get(i), ids[i]);
+    }
+    return true;
+  }
+
+  // Sequence values are taken from the in memory pool of the sequence first and the rest are
+  // fetched with a single query. See withSequenceBlockSize()
+  private long[] getNextSequenceValues(String sequenceName, int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("count has to be greater than 0");
+    }
+    Queue<Long> pool =
+        sequencePools.computeIfAbsent(sequenceName, k -> new ConcurrentLinkedQueue<>());
+    long[] values = new long[count];
+    int idx = 0;
+    Long value;
+    while (idx < count && (value = pool.poll()) != null) {
+      values[idx++] = value;
+    }
+    int remaining = count - idx;
+    if (remaining > 0) {
+      String sql = "select nextval(?::regclass) from generate_series(1, ?)";
+      long startNanos = startNanos();
+      List<Long> block =
+          jdbcTemplate.queryForList(
+              sql, Long.class, sequenceName, Math.max(remaining, sequenceBlockSize));
+      notifyStatementListeners(
+          null, "nextval", sequenceName, true, false, startNanos, block.size());
+      for (int i = 0; i < remaining; i++) {
+        values[idx++] = block.get(i);
+      }
+      pool.addAll(block.subList(remaining, block.size()));
+    }
+    return values;
+  }
+
+  // appends the object as a csv line for copyIn()
+  private void appendCopyRow(StringBuilder buffer, List<Property> properties, Object pojo) {
+    for (int i = 0; i < properties.size(); i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      Object value = properties.get(i).getValue(pojo);
+      // an unquoted empty value is null
+      if (value == null) {
+        continue;
+      }
+      if (value instanceof BigDecimal) {
+        buffer.append(((BigDecimal) value).toPlainString());
+      } else if (value instanceof Number || value instanceof Boolean) {
+        buffer.append(value);
+      } else if (value instanceof java.util.Date && !(value instanceof Timestamp)) {
+        buffer.append(new Timestamp(((java.util.Date) value).getTime()));
+      } else if (value instanceof byte[]) {
+        buffer.append("\\x");
+        for (byte b : (byte[]) value) {
+          buffer.append(Character.forDigit((b >> 4) & 0xF, 16));
+          buffer.append(Character.forDigit(b & 0xF, 16));
+        }
+      } else {
+        // LocalDate, LocalDateTime etc are in ISO format which postgres accepts.
+        // Quoting makes an empty string distinct from null
+        String str = value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+        buffer.append('"').append(str.replace("\"", "\"\"")).append('"');
+      }
+    }
+    buffer.append('\n');
+  }
+
+  // sends the buffered csv lines to the database and clears the buffer
+  private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+    if (buffer.length() > 0) {
+      byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+      buffer.setLength(0);
+    }
+  }
+
+  /**
+   * Returns the write behind queue of the current transaction, creating it on first use. The queue
+   * is flushed before commit and discarded when the transaction completes.
+   *
+   * @return the queue. null if write behind is off or there is no read/write transaction
+   */
+  private WriteBehindQueue getWriteBehindQueue() {
+    if (!writeBehind
+        || !TransactionSynchronizationManager.isSynchronizationActive()
+        || !TransactionSynchronizationManager.isActualTransactionActive()
+        || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return null;
+    }
+    WriteBehindQueue queue = (WriteBehindQueue) TransactionSynchronizationManager.getResource(this);
+    if (queue == null) {
+      WriteBehindQueue newQueue = new WriteBehindQueue();
+      TransactionSynchronizationManager.bindResource(this, newQueue);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+              // a REQUIRES_NEW transaction must not flush the queue of the outer transaction
+              TransactionSynchronizationManager.unbindResourceIfPossible(JdbcUtil.this);
+            }
+
+            @Override
+            public void resume() {
+              TransactionSynchronizationManager.bindResource(JdbcUtil.this, newQueue);
+            }
+
+            @Override
+            public void flush() {
+              // TransactionStatus.flush() also sends the queued statements
+              JdbcUtil.this.flush();
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              JdbcUtil.this.flush();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(JdbcUtil.this);
+            }
+          });
+      queue = newQueue;
+    }
+    return queue;
+  }
+
+  /**
+   * Executes a batch of queued statements in jdbc batches of BATCH_SIZE. For updates with a
+   * version, throws OptimisticLockingException with the ids of the records which failed to update.
+   *
+   * @param batch - the queued statements
+   */
+  @SuppressWarnings("unchecked")
+  private void executeQueuedBatch(QueuedBatch batch) {
+    Map<String, Object>[] batchValues = batch.paramsList.toArray(new Map[0]);
+    List<Object> failedIds = new ArrayList<>();
+    try {
+      long startNanos = startNanos();
+      int total = 0;
+      for (int start = 0; start < batchValues.length; start += BATCH_SIZE) {
+        int end = Math.min(start + BATCH_SIZE, batchValues.length);
+        int[] counts =
+            npJdbcTemplate.batchUpdate(batch.sql, Arrays.copyOfRange(batchValues, start, end));
+        for (int i = 0; i < counts.length; i++) {
+          if (counts[i] > 0) {
+            total += counts[i];
+          } else if (counts[i] == 0 && batch.checkVersion) {
+            failedIds.add(batch.ids.get(start + i));
+          }
+        }
+      }
+      recordUpdate(batch.descriptor.getClazz(), batch.operation, batch.sql, startNanos, total);
+    } finally {
+      evictFromEntityCache(batch.descriptor.getClazz(), batch.ids);
+    }
+    if (!failedIds.isEmpty()) {
+      throw new OptimisticLockingException(
+          "Update failed for "
+              + batch.descriptor.getClazz().getSimpleName()
+              + " for id(s):"
+              + failedIds
+              + ". Records were modified or deleted by another transaction");
+    }
+  }
+
+  /**
+   * Gets the insert sql with the column names as named parameters. Used for queued inserts. The
+   * sql is cached.
+   *
+   * @param descriptor - the entity descriptor of the objects
+   * @return the insert sql
+   */
+  private String getInsertSql(EntityDescriptor descriptor) {
+    String tableName = descriptor.getTableName();
+    String insertSql = insertSqlCache.get(tableName);
+    if (insertSql == null) {
+      List<String> columnNames = new ArrayList<>();
+      for (String columnName : getDbColumnNames(tableName)) {
+        Property property = descriptor.getPropertyByColumnName(columnName);
+        if (property != null && property.isReadable()) {
+          columnNames.add(columnName);
+        }
+      }
+      insertSql =
+          "insert into "
+              + tableName
+              + " ("
+              + String.join(", ", columnNames)
+              + ") values (:"
+              + String.join(", :", columnNames)
+              + ")";
+      insertSqlCache.put(tableName, insertSql);
+    }
+    return insertSql;
+  }
+
+  /**
+   * Upserts the objects in jdbc batches of BATCH_SIZE. The id, createdOn, createdBy and version
+   * returned by the database get assigned to the objects.
+   *
+   * @param descriptor - The entity descriptor of the objects
+   * @param pojos - The objects to upsert
+   * @param generatedId - true if the objects do not have an id and it is auto increment in the
+   *     database
+   * @param conflictColumns - property names of the columns of the unique constraint
+   * @return the number of records inserted
+   */
+  private int batchUpsert(
+      EntityDescriptor descriptor,
+      List<Object> pojos,
+      boolean generatedId,
+      String... conflictColumns) {
+    if (pojos.isEmpty()) {
+      return 0;
+    }
+    flush();
+    UpsertStatement upsert = getUpsertStatement(descriptor, generatedId, conflictColumns);
+    LocalDateTime now = LocalDateTime.now();
+    Object auditOperator =
+        auditOperatorResolver != null ? auditOperatorResolver.getAuditOperator() : null;
+    // the version the caller has. The existing record is only updated if it still matches
+    Object[] expectedVersions = new Object[pojos.size()];
+    for (int i = 0; i < pojos.size(); i++) {
+      Object pojo = pojos.get(i);
+      if (upsert.hasVersion) {
+        expectedVersions[i] = descriptor.getProperty(versionPropertyName).getValue(pojo);
+      }
+      setInsertAuditValues(descriptor, pojo, now, auditOperator);
+    }
+
+    List<Object> ids = new ArrayList<>();
+    PreparedStatementCreator psc =
+        con -> con.prepareStatement(upsert.sql, java.sql.Statement.RETURN_GENERATED_KEYS);
+    PreparedStatementCallback<Integer> action =
+        ps -> {
+          int inserted = 0;
+          List<Property> parameters = upsert.parameterProperties;
+          List<Property> returned = upsert.returnedProperties;
+          for (int start = 0; start < pojos.size(); start += BATCH_SIZE) {
+            List<Object> batch = pojos.subList(start, Math.min(start + BATCH_SIZE, pojos.size()));
+            for (int i = 0; i < batch.size(); i++) {
+              Object pojo = batch.get(i);
+              for (int j = 0; j < parameters.size(); j++) {
+                Property property = parameters.get(j);
+                StatementCreatorUtils.setParameterValue(
+                    ps, j + 1, property.getSqlType(), property.getValue(pojo));
+              }
+              if (upsert.hasVersion) {
+                StatementCreatorUtils.setParameterValue(
+                    ps, parameters.size() + 1, Types.INTEGER, expectedVersions[start + i]);
+              }
+              ps.addBatch();
+            }
+            ps.executeBatch();
+            // a row is returned for each object in batch order unless the version check failed
+            List<Object[]> rows = new ArrayList<>();
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+              while (rs.next()) {
+                Object[] row = new Object[returned.size() + 1];
+                for (int j = 0; j < returned.size(); j++) {
+                  row[j] = JdbcUtils.getResultSetValue(rs, j + 1, returned.get(j).getType());
+                }
+                row[returned.size()] = rs.getBoolean(returned.size() + 1);
+                rows.add(row);
+              }
+            }
+            if (rows.size() != batch.size()) {
+              throw new OptimisticLockingException(
+                  "Upsert failed for "
+                      + (batch.size() - rows.size())
+                      + " "
+                      + descriptor.getClazz().getSimpleName()
+                      + " record(s). Records were modified by another transaction");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+              Object[] row = rows.get(i);
+              for (int j = 0; j < returned.size(); j++) {
+                returned.get(j).setValue(batch.get(i), row[j]);
+              }
+              ids.add(row[0]);
+              if ((Boolean) row[returned.size()]) {
+                inserted++;
+              }
+            }
+          }
+          return inserted;
+        };
+    try {
+      long startNanos = startNanos();
+      Integer inserted = jdbcTemplate.execute(psc, action);
+      recordUpdate(descriptor.getClazz(), "upsert", upsert.sql, startNanos, pojos.size());
+      for (Object pojo : pojos) {
+        takeSnapshot(descriptor, pojo);
+      }
+      return inserted;
+    } finally {
+      evictFromEntityCache(descriptor.getClazz(), ids);
+    }
+  }
+
+  /**
+   * Inserts the objects which do not conflict with an existing record in jdbc batches of
+   * BATCH_SIZE. The ids returned by the database get assigned to the inserted objects.
+   *
+   * @param descriptor - The entity descriptor of the objects
+   * @param pojos - The objects to insert
+   * @param generatedId - true if the objects do not have an id and it is auto increment in the
+   *     database
+   * @param conflictColumns - property names of the columns of the unique constraint
+   * @return the number of records inserted
+   */
+  private int batchInsertIfAbsent(
+      EntityDescriptor descriptor,
+      List<Object> pojos,
+      boolean generatedId,
+      String... conflictColumns) {
+    if (pojos.isEmpty()) {
+      return 0;
+    }
+    flush();
+    UpsertStatement insert = getInsertIfAbsentStatement(descriptor, generatedId, conflictColumns);
+    LocalDateTime now = LocalDateTime.now();
+    Object auditOperator =
+        auditOperatorResolver != null ? auditOperatorResolver.getAuditOperator() : null;
+    for (Object pojo : pojos) {
+      setInsertAuditValues(descriptor, pojo, now, auditOperator);
+    }
+
+    List<Object> insertedPojos = new ArrayList<>();
+    PreparedStatementCreator psc =
+        con -> con.prepareStatement(insert.sql, java.sql.Statement.RETURN_GENERATED_KEYS);
+    PreparedStatementCallback<Integer> action =
+        ps -> {
+          List<Property> parameters = insert.parameterProperties;
+          List<Property> returned = insert.returnedProperties;
+          for (int start = 0; start < pojos.size(); start += BATCH_SIZE) {
+            List<Object> batch = pojos.subList(start, Math.min(start + BATCH_SIZE, pojos.size()));
+            for (Object pojo : batch) {
+              for (int j = 0; j < parameters.size(); j++) {
+                Property property = parameters.get(j);
+                StatementCreatorUtils.setParameterValue(
+                    ps, j + 1, property.getSqlType(), property.getValue(pojo));
+              }
+              ps.addBatch();
+            }
+            ps.executeBatch();
+            // a row is returned for each inserted object in batch order. None for the objects
+            // which conflicted, so the rows are matched to the objects by the conflict columns.
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+              int i = 0;
+              while (rs.next()) {
+                while (i < batch.size() && !hasReturnedValues(rs, returned, batch.get(i))) {
+                  i++;
+                }
+                if (i == batch.size()) {
+                  throw new IllegalStateException(
+                      "Returned row does not match any " + descriptor.getClazz().getSimpleName());
+                }
+                Property idProperty = returned.get(0);
+                idProperty.setValue(
+                    batch.get(i), JdbcUtils.getResultSetValue(rs, 1, idProperty.getType()));
+                insertedPojos.add(batch.get(i));
+                i++;
+              }
+            }
+          }
+          return insertedPojos.size();
+        };
+    long startNanos = startNanos();
+    Integer inserted = jdbcTemplate.execute(psc, action);
+    recordUpdate(descriptor.getClazz(), "insertIfAbsent", insert.sql, startNanos, inserted);
+    for (Object pojo : insertedPojos) {
+      takeSnapshot(descriptor, pojo);
+    }
+    return inserted;
+  }
+
+  // whether the conflict column values returned for an inserted row (all but the first returned
+  // column, which is the id) are the values of the object
+  private boolean hasReturnedValues(ResultSet rs, List<Property> returned, Object pojo)
+      throws SQLException {
+    for (int j = 1; j < returned.size(); j++) {
+      Property property = returned.get(j);
+      Object value = JdbcUtils.getResultSetValue(rs, j + 1, property.getType());
+      if (!Objects.equals(value, property.getValue(pojo))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the insert statement for the table which skips records that conflict with an existing
+   * record. Ex:
+   *
+   * <pre>
+   * insert into person_project as t (person_id, project_id) values (?, ?)
+   * on conflict (person_id, project_id) do nothing
+   * returning t.id, t.person_id, t.project_id
+   * </pre>
+   *
+   * <p>The statement is cached.
+   *
+   * @param descriptor - the entity descriptor of the objects
+   * @param generatedId - true if the id is auto increment in the database
+   * @param conflictColumns - property names of the columns of the unique constraint
+   * @return the statement. The returned properties are the id followed by the conflict columns
+   */
+  private UpsertStatement getInsertIfAbsentStatement(
+      EntityDescriptor descriptor, boolean generatedId, String... conflictColumns) {
+    String tableName = descriptor.getTableName();
+    String cacheKey =
+        "insertIfAbsent-"
+            + tableName
+            + "-"
+            + generatedId
+            + "-"
+            + String.join("-", conflictColumns);
+    UpsertStatement insert = upsertStatementCache.get(cacheKey);
+    if (insert != null) {
+      return insert;
+    }
+
+    List<String> dbColumnNames = getDbColumnNames(tableName);
+    List<Property> returnedProperties = new ArrayList<>();
+    returnedProperties.add(descriptor.getIdProperty());
+    for (String conflictColumn : conflictColumns) {
+      Property property = descriptor.getProperty(conflictColumn);
+      if (property == null || !dbColumnNames.contains(property.getColumnName())) {
+        throw new RuntimeException(
+            "insertIfAbsent() conflict column "
+                + conflictColumn
+                + " is not a column of "
+                + tableName);
+      }
+      returnedProperties.add(property);
+    }
+    if (returnedProperties.size() == 1) {
+      returnedProperties.add(descriptor.getIdProperty());
+    }
+
+    List<Property> parameterProperties = new ArrayList<>();
+    List<String> insertColumnNames = new ArrayList<>();
+    for (String columnName : dbColumnNames) {
+      if (generatedId && "id".equals(columnName)) {
+        continue;
+      }
+      Property property = descriptor.getPropertyByColumnName(columnName);
+      if (property != null && property.isReadable()) {
+        insertColumnNames.add(columnName);
+        parameterProperties.add(property);
+      }
+    }
+
+    List<String> conflictColumnNames = new ArrayList<>();
+    List<String> returnedColumnNames = new ArrayList<>();
+    for (int i = 0; i < returnedProperties.size(); i++) {
+      String columnName = returnedProperties.get(i).getColumnName();
+      returnedColumnNames.add("t." + columnName);
+      if (i > 0) {
+        conflictColumnNames.add(columnName);
+      }
+    }
+    String sql =
+        "insert into "
+            + tableName
+            + " as t ("
+            + String.join(", ", insertColumnNames)
+            + ") values ("
+            + String.join(", ", Collections.nCopies(insertColumnNames.size(), "?"))
+            + ") on conflict ("
+            + String.join(", ", conflictColumnNames)
+            + ") do nothing returning "
+            + String.join(", ", returnedColumnNames);
+
+    insert = new UpsertStatement(sql, parameterProperties, returnedProperties, false);
+    upsertStatementCache.put(cacheKey, insert);
+    return insert;
+  }
+
+  /**
+   * Gets the upsert statement for the table. Ex:
+   *
+   * <pre>
+   * insert into person_project as t (person_id, project_id) values (?, ?)
+   * on conflict (person_id, project_id) do update set project_id = excluded.project_id
+   * returning t.id, (t.xmax = 0) inserted
+   * </pre>
+   *
+   * <p>The statement is cached.
+   *
+   * @param descriptor - the entity descriptor of the objects
+   * @param generatedId - true if the id is auto increment in the database
+   * @param conflictColumns - property names of the columns of the unique constraint
+   * @return the upsert statement
+   */
+  private UpsertStatement getUpsertStatement(
+      EntityDescriptor descriptor, boolean generatedId, String... conflictColumns) {
+    String tableName = descriptor.getTableName();
+    String cacheKey = tableName + "-" + generatedId + "-" + String.join("-", conflictColumns);
+    UpsertStatement upsert = upsertStatementCache.get(cacheKey);
+    if (upsert != null) {
+      return upsert;
+    }
+
+    List<String> dbColumnNames = getDbColumnNames(tableName);
+    List<String> conflictColumnNames = new ArrayList<>();
+    for (String conflictColumn : conflictColumns) {
+      String columnName = convertCamelToSnakeCase(conflictColumn);
+      if (!dbColumnNames.contains(columnName)) {
+        throw new RuntimeException(
+            "upsert() conflict column " + conflictColumn + " is not a column of " + tableName);
+      }
+      conflictColumnNames.add(columnName);
+    }
+    if (conflictColumnNames.isEmpty()) {
+      conflictColumnNames.add("id");
+    }
+
+    Set<String> notUpdatedColumnNames = new HashSet<>(conflictColumnNames);
+    notUpdatedColumnNames.add("id");
+    String versionColumnName = null;
+    List<Property> returnedProperties = new ArrayList<>();
+    returnedProperties.add(descriptor.getIdProperty());
+    for (String propertyName :
+        new String[] {createdOnPropertyName, createdByPropertyName, versionPropertyName}) {
+      Property property = descriptor.getProperty(propertyName);
+      if (property != null
+          && property.isReadable()
+          && property.isWritable()
+          && dbColumnNames.contains(property.getColumnName())) {
+        notUpdatedColumnNames.add(property.getColumnName());
+        returnedProperties.add(property);
+        if (propertyName.equals(versionPropertyName)) {
+          versionColumnName = property.getColumnName();
+        }
+      }
+    }
+
+    List<Property> parameterProperties = new ArrayList<>();
+    List<String> insertColumnNames = new ArrayList<>();
+    List<String> updateAssignments = new ArrayList<>();
+    for (String columnName : dbColumnNames) {
+      if (generatedId && "id".equals(columnName)) {
+        continue;
+      }
+      Property property = descriptor.getPropertyByColumnName(columnName);
+      if (property != null && property.isReadable()) {
+        insertColumnNames.add(columnName);
+        parameterProperties.add(property);
+        if (!notUpdatedColumnNames.contains(columnName)) {
+          updateAssignments.add(columnName + " = excluded." + columnName);
+        }
+      }
+    }
+    if (versionColumnName != null) {
+      updateAssignments.add(versionColumnName + " = t." + versionColumnName + " + 1");
+    }
+    if (updateAssignments.isEmpty()) {
+      // nothing to update. Still needs 'do update' so that the existing record gets returned
+      String columnName = conflictColumnNames.get(0);
+      updateAssignments.add(columnName + " = excluded." + columnName);
+    }
+
+    StringBuilder sqlBuilder = new StringBuilder("insert into ");
+    sqlBuilder.append(tableName).append(" as t (");
+    sqlBuilder.append(String.join(", ", insertColumnNames));
+    sqlBuilder.append(") values (");
+    sqlBuilder.append(String.join(", ", Collections.nCopies(insertColumnNames.size(), "?")));
+    sqlBuilder.append(") on conflict (").append(String.join(", ", conflictColumnNames));
+    sqlBuilder.append(") do update set ").append(String.join(", ", updateAssignments));
+    if (versionColumnName != null) {
+      // null when the caller does not have a version. Then the version is not checked
+      sqlBuilder
+          .append(" where t.")
+          .append(versionColumnName)
+          .append(" = coalesce(?, t.")
+          .append(versionColumnName)
+          .append(")");
+    }
+    sqlBuilder.append(" returning ");
+    for (Property property : returnedProperties) {
+      sqlBuilder.append("t.").append(property.getColumnName()).append(", ");
+    }
+    // xmax is 0 for a newly inserted row
+    sqlBuilder.append("(t.xmax = 0) inserted");
+
+    upsert =
+        new UpsertStatement(
+            sqlBuilder.toString(),
+            parameterProperties,
+            returnedProperties,
+            versionColumnName != null);
+    upsertStatementCache.put(cacheKey, upsert);
+    return upsert;
+  }
+
+  /**
+   * Gets the update sql which updates all the columns of the table. The sql is cached.
+   *
+   * @param descriptor - the entity descriptor of the object to be updated
+   * @return sql update string
+   */
+  private String getUpdateSql(EntityDescriptor descriptor) {
+    String updateSql = updateSqlCache.get(descriptor.getTableName());
+    if (updateSql == null) {
+      updateSql = buildUpdateSql(descriptor);
+    }
+    return updateSql;
+  }
+
+  /**
+   * Gets the update sql which updates the columns for the propertyNames. The sql is cached.
+   *
+   * @param descriptor - the entity descriptor of the object to be updated
+   * @param propertyNames - array of property names that should be updated
+   * @return sql update string
+   */
+  private String getUpdateSql(EntityDescriptor descriptor, String... propertyNames) {
+    String tableName = descriptor.getTableName();
+    // cachekey ex: className-propertyName1-propertyName2
+    String cacheKey = tableName + "-" + String.join("-", propertyNames);
+    String updateSql = updateSqlCache.get(cacheKey);
+    if (updateSql == null) {
+      StringBuilder sqlBuilder = new StringBuilder("update ");
+      sqlBuilder.append(tableName);
+      sqlBuilder.append(" set ");
+
+      List<String> dbColumnNameList = new ArrayList<>();
+      for (String propertyName : propertyNames) {
+        dbColumnNameList.add(convertCamelToSnakeCase(propertyName));
+      }
+      boolean first = true;
+      for (String columnName : dbColumnNameList) {
+        if (!first) {
+          sqlBuilder.append(", ");
+        } else {
+          first = false;
+        }
+        sqlBuilder.append(columnName);
+        sqlBuilder.append(" = :");
+
+        sqlBuilder.append(convertSnakeToCamelCase(columnName));
+      }
+      // the set assignment for the incremented version
+      if (descriptor.isReadableProperty(versionPropertyName)) {
+        sqlBuilder.append(", ").append(versionPropertyName).append(" = :incrementedVersion");
+      }
+      // the where clause
+      sqlBuilder.append(" where id = :id");
+      if (descriptor.isReadableProperty(versionPropertyName)) {
+        sqlBuilder
+            .append(" and ")
+            .append(versionPropertyName)
+            .append(" = :")
+            .append(versionPropertyName);
+      }
+
+      updateSql = sqlBuilder.toString();
+      updateSqlCache.put(cacheKey, updateSql);
+    }
+    return updateSql;
+  }
+
+  /**
+   * Executes the update sql for the object. If object has property version throws
+   * OptimisticLockingException if the update fails. The version gets incremented.
+   *
+   * @param descriptor - the entity descriptor of the object
+   * @param updateSql - the update sql
+   * @param pojo - object to be updated
+   * @return 0 if no records were updated
+   */
+  private Integer executeUpdate(EntityDescriptor descriptor, String updateSql, Object pojo) {
+    Object auditOperator =
+        auditOperatorResolver != null ? auditOperatorResolver.getAuditOperator() : null;
+    Map<String, Object> attributes =
+        getUpdateAttributes(descriptor, pojo, LocalDateTime.now(), auditOperator);
+    boolean hasVersion = descriptor.isReadableProperty(versionPropertyName);
+    WriteBehindQueue queue = getWriteBehindQueue();
+    if (queue != null) {
+      queue.add("update", updateSql, descriptor, attributes, attributes.get("id"), hasVersion);
+      evictFromEntityCache(descriptor.getClazz(), Collections.singletonList(attributes.get("id")));
+      if (hasVersion) {
+        // so that another update of the object in the transaction uses the queued version
+        setPropertyIfExists(
+            descriptor, pojo, versionPropertyName, attributes.get("incrementedVersion"));
+      }
+      return 1;
+    }
+    flush();
+    long startNanos = startNanos();
+    int cnt = npJdbcTemplate.update(updateSql, attributes);
+    recordUpdate(descriptor.getClazz(), "update", updateSql, startNanos, cnt);
+    evictFromEntityCache(descriptor.getClazz(), Collections.singletonList(attributes.get("id")));
+    if (hasVersion) {
+      if (cnt == 0) {
+        throw new OptimisticLockingException(
+            "Update failed for "
+                + descriptor.getClazz().getSimpleName()
+                + " for id:"
+                + attributes.get("id")
+                + " and "
+                + versionPropertyName
+                + ":"
+                + attributes.get(versionPropertyName));
+      }
+      setPropertyIfExists(
+          descriptor, pojo, versionPropertyName, attributes.get("incrementedVersion"));
+    }
+    return cnt;
+  }
+
+  /**
+   * Executes the update sql for the objects in jdbc batches of BATCH_SIZE. If the objects have
+   * property version and any of the updates fail throws OptimisticLockingException with the ids of
+   * all the failed records.
+   *
+   * @param descriptor - the entity descriptor of the objects
+   * @param updateSql - the update sql
+   * @param pojos - objects to be updated
+   * @return number of records updated
+   */
+  @SuppressWarnings("unchecked")
+  private Integer executeBatchUpdate(
+      EntityDescriptor descriptor, String updateSql, List<?> pojos) {
+    LocalDateTime now = LocalDateTime.now();
+    Object auditOperator =
+        auditOperatorResolver != null ? auditOperatorResolver.getAuditOperator() : null;
+    Map<String, Object>[] batchValues = new Map[pojos.size()];
+    for (int i = 0; i < pojos.size(); i++) {
+      Object pojo = pojos.get(i);
+      if (pojo.getClass() != descriptor.getClazz()) {
+        throw new IllegalArgumentException(
+            "updateAll() expects objects of the same type. Found "
+                + descriptor.getClazz().getSimpleName()
+                + " and "
+                + pojo.getClass().getSimpleName());
+      }
+      batchValues[i] = getUpdateAttributes(descriptor, pojo, now, auditOperator);
+    }
+
+    List<Object> ids = new ArrayList<>();
+    for (Map<String, Object> values : batchValues) {
+      ids.add(values.get("id"));
+    }
+
+    boolean hasVersion = descriptor.isReadableProperty(versionPropertyName);
+    WriteBehindQueue queue = getWriteBehindQueue();
+    if (queue != null) {
+      for (int i = 0; i < batchValues.length; i++) {
+        queue.add(
+            "updateAll",
+            updateSql,
+            descriptor,
+            batchValues[i],
+            batchValues[i].get("id"),
+            hasVersion);
+        if (hasVersion) {
+          setPropertyIfExists(
+              descriptor,
+              pojos.get(i),
+              versionPropertyName,
+              batchValues[i].get("incrementedVersion"));
+        }
+      }
+      evictFromEntityCache(descriptor.getClazz(), ids);
+      return pojos.size();
+    }
+    flush();
+
+    evictFromEntityCache(descriptor.getClazz(), ids);
+
+    int total = 0;
+    List<Object> failedIds = new ArrayList<>();
+    long startNanos = startNanos();
+    for (int start = 0; start < batchValues.length; start += BATCH_SIZE) {
+      int end = Math.min(start + BATCH_SIZE, batchValues.length);
+      int[] counts =
+          npJdbcTemplate.batchUpdate(updateSql, Arrays.copyOfRange(batchValues, start, end));
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          total += counts[i];
+        } else if (counts[i] == 0 && hasVersion) {
+          failedIds.add(batchValues[start + i].get("id"));
+        }
+      }
+    }
+    recordUpdate(descriptor.getClazz(), "updateAll", updateSql, startNanos, total);
+    if (!failedIds.isEmpty()) {
+      throw new OptimisticLockingException(
+          "Update failed for "
+              + descriptor.getClazz().getSimpleName()
+              + " for id(s):"
+              + failedIds
+              + ". Records were modified or deleted by another transaction");
+    }
+    if (hasVersion) {
+      for (int i = 0; i < pojos.size(); i++) {
+        setPropertyIfExists(
+            descriptor,
+            pojos.get(i),
+            versionPropertyName,
+            batchValues[i].get("incrementedVersion"));
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Sets updatedOn and updatedBy on the object and returns the named parameters for the update
+   * sql. If the object has a version property the parameters include 'incrementedVersion'.
+   *
+   * @param descriptor - the entity descriptor of the object
+   * @param pojo - the object to be updated
+   * @param now - the updatedOn value
+   * @param auditOperator - the updatedBy value
+   * @return Map with key: property name, value: object value
+   */
+  private Map<String, Object> getUpdateAttributes(
+      EntityDescriptor descriptor, Object pojo, LocalDateTime now, Object auditOperator) {
+    setPropertyIfExists(descriptor, pojo, updatedOnPropertyName, now);
+    if (auditOperatorResolver != null) {
+      setPropertyIfExists(descriptor, pojo, updatedByPropertyName, auditOperator);
+    }
+    Map<String, Object> attributes = convertObjectToMap(pojo);
+    if (descriptor.isReadableProperty(versionPropertyName)) {
+      Integer versionVal = (Integer) attributes.get(versionPropertyName);
+      if (versionVal == null) {
+        throw new RuntimeException(
+            versionPropertyName
+                + " cannot be null when updating "
+                + pojo.getClass().getSimpleName());
+      }
+      attributes.put("incrementedVersion", versionVal + 1);
     }
+    return attributes;
   }
 
-  public <T, U> void toMany(
-      T mainObj, String collectionPropertyName, Class<U> manySideClazz, String orderByClause) {
-    List<T> mainObjList = new ArrayList<>();
-    mainObjList.add(mainObj);
-    toMany(mainObjList, collectionPropertyName, manySideClazz, orderByClause);
+  /**
+   * Returns true if the current transaction queued writes of the class in write behind mode. The
+   * entity cache may have been refilled with the committed record by another thread since the
+   * writes evicted it.
+   *
+   * @param clazz - the class
+   * @return true if the class was written through the write behind queue of the transaction
+   */
+  private boolean hasQueuedWrites(Class<?> clazz) {
+    if (!writeBehind) {
+      return false;
+    }
+    WriteBehindQueue queue = (WriteBehindQueue) TransactionSynchronizationManager.getResource(this);
+    return queue != null && queue.writtenClasses.contains(clazz);
   }
 
   /**
-   * When provided a list of one side objects populates the many side list.
-   *
-   * <p>Executes a query with 'IN' clause.
+   * Evicts the ids from the entity cache of the class if it has one. When called within a
+   * transaction the ids are evicted again after commit so that a concurrent findById() which read
+   * the old record before the commit does not leave it in the cache.
    *
-   * @param mainObjList - the main object list
-   * @param collectionPropertyName - The collection property name on mainObj
-   * @param manySideClass - The many side class
-   * @param orderByClause - The order by clause for the many side query
+   * @param clazz - the class
+   * @param ids - the ids to evict
    */
-  public <T, U> void toMany(
-      List<T> mainObjList,
-      String collectionPropertyName,
-      Class<U> manySideClazz,
-      String orderByClause) {
-    String tableName = convertCamelToSnakeCase(manySideClazz.getSimpleName());
-    if (Util.isNotEmpty(mainObjList)) {
-      Set<Integer> allIds = new LinkedHashSet<>();
-      for (T mainObj : mainObjList) {
-          BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);
-        Integer idVal = (Integer) bw.getPropertyValue("id");
-        if (idVal != null && idVal > 0) {
-          allIds.add((idVal));
-        } else {
-          throw new RuntimeException("id property in mainObjList cannot be null");
-        }
+  private void evictFromEntityCache(Class<?> clazz, Collection<?> ids) {
+    Cache cache = entityCacheMap.get(clazz);
+    if (cache == null || Util.isEmpty(ids)) {
+      return;
+    }
+    EntityDescriptor descriptor = getEntityDescriptor(clazz);
+    List<Object> keys = new ArrayList<>(ids.size());
+    for (Object id : ids) {
+      if (id != null) {
+        Object key = toEntityCacheKey(descriptor, id);
+        keys.add(key);
+        cache.evict(key);
       }
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              for (Object key : keys) {
+                cache.evict(key);
+              }
+            }
+          });
+    }
+  }
 
-      List<Integer> uniqueIds = new ArrayList<>(allIds);
+  /**
+   * Records the column property values of the object if its class is a dirty tracking class.
+   *
+   * @param descriptor - the entity descriptor of the object
+   * @param obj - the object as it is in the database
+   */
+  private void takeSnapshot(EntityDescriptor descriptor, Object obj) {
+    if (dirtyTrackingClasses.isEmpty() || !dirtyTrackingClasses.contains(descriptor.getClazz())) {
+      return;
+    }
+    Map<String, Object> snapshot = new HashMap<>();
+    for (Property property : getTrackedProperties(descriptor)) {
+      snapshot.put(property.getName(), property.getValue(obj));
+    }
+    snapshots.put(obj, snapshot);
+  }
 
-      String joinColumnName =
-          convertCamelToSnakeCase(mainObjList.get(0).getClass().getSimpleName()) + "_id";
-      List<U> manySideList = new ArrayList<>();
-      // to avoid query being issued with large number of
-      // records for the 'IN (:columnIds) clause the list is chunked by IN_CLAUSE_CHUNK_SIZE
-      // and multiple queries issued
-      Collection<List<Integer>> chunkedColumnIds = chunkList(uniqueIds, IN_CLAUSE_CHUNK_SIZE);
-      for (List<Integer> columnIds : chunkedColumnIds) {
-        String sql = "select * from " + tableName + " where " + joinColumnName + " in (:columnIds)";
-        if (Util.isNotEmpty(orderByClause)) {
-          sql += " " + orderByClause;
-        } else {
-          sql += " order by id";
+  // updates the snapshot of the object for properties which were written to the database
+  private void updateSnapshot(EntityDescriptor descriptor, Object obj, String... propertyNames) {
+    Map<String, Object> snapshot = getSnapshot(descriptor, obj);
+    if (snapshot != null) {
+      for (String propertyName : propertyNames) {
+        if (snapshot.containsKey(propertyName)) {
+          snapshot.put(propertyName, descriptor.getProperty(propertyName).getValue(obj));
         }
-        MapSqlParameterSource params = new MapSqlParameterSource("columnIds", columnIds);
-        RowMapper<U> mapper = BeanPropertyRowMapper.newInstance(manySideClazz);
-        manySideList.addAll(npJdbcTemplate.query(sql, params, mapper));
       }
+    }
+  }
 
-      if (Util.isNotEmpty(manySideList)) {
-        String joinPropertyName = convertSnakeToCamelCase(joinColumnName);
-
-        // map: key - joinPropertyName, value - List of manyside for the join property
-        Map<Integer, List<U>> mapColumnIdToManySide =
-            manySideList
-                .stream()
-                .collect(
-                    Collectors.groupingBy(e -> (Integer) getSimpleProperty(e, joinPropertyName)));
+  // the snapshot of the object. null if not a dirty tracking class or not loaded through JdbcUtil
+  private Map<String, Object> getSnapshot(EntityDescriptor descriptor, Object obj) {
+    if (dirtyTrackingClasses.isEmpty() || !dirtyTrackingClasses.contains(descriptor.getClazz())) {
+      return null;
+    }
+    return snapshots.get(obj);
+  }
 
-        // assign the manyside list to the mainobj
-        for (T mainObj : mainObjList) {
-          BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);
-          Integer idValue = (Integer) bw.getPropertyValue("id");
-          List<U> relatedList = mapColumnIdToManySide.get(idValue);
-          bw.setPropertyValue(collectionPropertyName, relatedList);
+  /**
+   * Returns the names of the properties whose values differ from the snapshot, in table column
+   * order. Audit and version properties are not compared. If there are changes, updatedOn and
+   * updatedBy are added so that they get written along with the changes.
+   *
+   * @param descriptor - the entity descriptor of the object
+   * @param obj - the object
+   * @param snapshot - the snapshot of the object
+   * @return the changed property names. Empty if nothing changed
+   */
+  private String[] getChangedPropertyNames(
+      EntityDescriptor descriptor, Object obj, Map<String, Object> snapshot) {
+    List<String> auditPropertyNames =
+        Arrays.asList(updatedOnPropertyName, updatedByPropertyName, versionPropertyName);
+    List<String> changed = new ArrayList<>();
+    for (Property property : getTrackedProperties(descriptor)) {
+      String name = property.getName();
+      if (!auditPropertyNames.contains(name)
+          && !isSameValue(property.getValue(obj), snapshot.get(name))) {
+        changed.add(name);
+      }
+    }
+    if (!changed.isEmpty()) {
+      for (String name : new String[] {updatedOnPropertyName, updatedByPropertyName}) {
+        if (name != null && snapshot.containsKey(name)) {
+          changed.add(name);
         }
       }
     }
+    return changed.toArray(new String[0]);
   }
 
-  @SuppressWarnings("all")
-  public <T, U> List<T> toManyMapper(
-      ResultSet rs,
-      SelectMapper<T> mainObjMapper,
-      String collectionPropertyName,
-      SelectMapper<U> relatedObjMapper) {
-    try {
-      Map<Integer, T> resultMap = new LinkedHashMap<>();
-      List<String> resultSetColumnNames = getResultSetColumnNames(rs);
-      String colMainObjId = mainObjMapper.getSqlColumnPrefix() + "id";
-      String colRelatedObjId = relatedObjMapper.getSqlColumnPrefix() + "id";
-      while (rs.next()) {
-        Integer mainObjId = rs.getInt(colMainObjId);
-        T mainObj =
-            resultMap.getOrDefault(
-                mainObjId,
-                newInstance(
-                    mainObjMapper.getClazz(),
-                    rs,
-                    mainObjMapper.getSqlColumnPrefix(),
-                    resultSetColumnNames));
-        Integer relatedObjId = rs.getInt(colRelatedObjId);
-        if (relatedObjId != null && relatedObjId != 0) {
-          Object relatedObj =
-              newInstance(
-                  relatedObjMapper.getClazz(),
-                  rs,
-                  relatedObjMapper.getSqlColumnPrefix(),
-                  resultSetColumnNames);
-          BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);
-          List list = (List) bw.getPropertyValue(collectionPropertyName);
-          if (list == null) {
-            list = new ArrayList<>();
-            bw.setPropertyValue(collectionPropertyName, list);
-          }
-          list.add(relatedObj);
-        }
-        resultMap.put(mainObjId, mainObj);
+  // the properties which get updated: readable/writable properties of the table columns except
+  // id, createdOn and createdBy
+  private List<Property> getTrackedProperties(EntityDescriptor descriptor) {
+    List<Property> properties = new ArrayList<>();
+    for (String columnName : getDbColumnNames(descriptor.getTableName())) {
+      Property property = descriptor.getPropertyByColumnName(columnName);
+      if (property != null
+          && property.isReadable()
+          && property.isWritable()
+          && !"id".equals(property.getName())
+          && !property.getName().equals(createdOnPropertyName)
+          && !property.getName().equals(createdByPropertyName)) {
+        properties.add(property);
       }
-      return new ArrayList<T>(resultMap.values());
-    } catch (Exception e) {
-      throw new RuntimeException(e);
     }
+    return properties;
   }
 
-  @SuppressWarnings("all")
-  public <T, U> void toManyMerge(
-      List<T> mainObjList,
-      List<U> manySideList,
-      String collectionPropertyName,
-      String joinPropertyName) {
-    try {
-      Map<Integer, T> resultMap = new LinkedHashMap<>();
-      if (Util.isNotEmpty(manySideList)) {
-        Map<Integer, List<U>> mapColumnIdToManySide =
-            manySideList
-                .stream()
-                .collect(
-                    Collectors.groupingBy(e -> (Integer) getSimpleProperty(e, joinPropertyName)));
+  private boolean isSameValue(Object value, Object snapshotValue) {
+    if (value instanceof BigDecimal && snapshotValue instanceof BigDecimal) {
+      // 1.50 and 1.5 are the same value for the database
+      return ((BigDecimal) value).compareTo((BigDecimal) snapshotValue) == 0;
+    }
+    return Objects.deepEquals(value, snapshotValue);
+  }
 
-        // assign the manyside list to the mainobj
-        for (T mainObj : mainObjList) {
-          BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mainObj);	
-          Integer idValue = (Integer) bw.getPropertyValue("id");
-          List<U> relatedList = mapColumnIdToManySide.get(idValue);
-          bw.setPropertyValue(collectionPropertyName, relatedList);
-        }
+  /**
+   * Returns a new object with only the properties which map to database columns copied over. Used
+   * for the entity cache so that relationship properties (lists, related objects) are not shared.
+   *
+   * @param descriptor - the entity descriptor of the object
+   * @param obj - the object
+   * @return the copy
+   */
+  private Object copyColumnProperties(EntityDescriptor descriptor, Object obj) {
+    Object copy = descriptor.newInstance();
+    for (String columnName : getDbColumnNames(descriptor.getTableName())) {
+      Property property = descriptor.getPropertyByColumnName(columnName);
+      if (property != null && property.isReadable() && property.isWritable()) {
+        property.setValue(copy, property.getValue(obj));
       }
-    } catch (Exception e) {
-      throw new RuntimeException(e);
     }
+    return copy;
   }
 
   /**
-   * Returns lists for each mapper passed in as an argument. The values in the list are UNIQUE and
-   * in same order as the ResultSet values. The map key is the SqlMapper columnPrefix.
+   * Flattens the graph mapper into nodes, parents before children.
    *
-   * @param rs - The result set
-   * @param selectMappers - The variable number of sql mappers.
-   * @return Map - key: 'sqlColumnPrefix' of sqlmapper, value - unique list
+   * @param graphMapper - the graph mapper for the level
+   * @param parentIndex - index of the parent node. -1 for the root
+   * @param collectionProperty - the collection property on the parent. null for the root
+   * @param resultSetColumnNames - the column names of the result set
+   * @param nodes - the list the nodes get added to
    */
-  @SuppressWarnings("all")
-  public Map<String, List> multipleModelMapper(ResultSet rs, SelectMapper... selectMappers) {
-    try {
-      Map<String, List> resultMap = new HashMap();
-      Map<String, List> tempMap = new HashMap<>();
-      for (SelectMapper selectMapper : selectMappers) {
-        tempMap.put(selectMapper.getSqlColumnPrefix(), new ArrayList());
-      }
-      List<String> resultSetColumnNames = getResultSetColumnNames(rs);
-      while (rs.next()) {
-        for (SelectMapper selectMapper : selectMappers) {
-          Integer id = rs.getInt(selectMapper.getSqlColumnPrefix() + "id");
-          if (id == null || id == 0) {
-            new RuntimeException(
-                "Mapper expects '" + selectMapper.getSqlColumnPrefix() + "id' in select statement");
-          }
-          Object obj =
-              newInstance(
-                  selectMapper.getClazz(),
-                  rs,
-                  selectMapper.getSqlColumnPrefix(),
-                  resultSetColumnNames);
-          tempMap.get(selectMapper.getSqlColumnPrefix()).add(obj);
-        }
+  private void addGraphNodes(
+      GraphMapper<?> graphMapper,
+      int parentIndex,
+      Property collectionProperty,
+      List<String> resultSetColumnNames,
+      List<GraphNode> nodes) {
+    SelectMapper<?> selectMapper = graphMapper.getSelectMapper();
+    MappingPlan plan = getMappingPlan(selectMapper, resultSetColumnNames);
+    boolean isLastLevel = graphMapper.getChildren().isEmpty();
+    if (parentIndex < 0 || !isLastLevel) {
+      // root and intermediate levels need the id to identify their objects
+      getIdColumnIndex(selectMapper, plan);
+    }
+    GraphNode node = new GraphNode();
+    node.plan = plan;
+    node.parentIndex = parentIndex;
+    node.collectionProperty = collectionProperty;
+    node.identityMap = plan.hasIdColumn() ? new LongObjectMap<>() : null;
+    nodes.add(node);
+
+    int index = nodes.size() - 1;
+    for (GraphMapper.Child child : graphMapper.getChildren()) {
+      Property childCollectionProperty =
+          plan.getDescriptor().getRequiredProperty(child.getCollectionPropertyName());
+      addGraphNodes(
+          child.getGraphMapper(), index, childCollectionProperty, resultSetColumnNames, nodes);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> void addGraphObject(
+      GraphNode node, Object parentObj, Object obj, List<T> resultList) {
+    if (parentObj == null) {
+      resultList.add((T) obj);
+    } else {
+      List<Object> list = (List<Object>) node.collectionProperty.getValue(parentObj);
+      if (list == null) {
+        list = new ArrayList<>();
+        node.collectionProperty.setValue(parentObj, list);
       }
+      list.add(obj);
+    }
+  }
+
+  // a level of a GraphMapper resolved against the result set
+  private static class GraphNode {
+    private MappingPlan plan;
+    private int parentIndex;
+    // the collection property on the parent object. null for the root
+    private Property collectionProperty;
+    // key - id, value - the object. null if the level does not have an id column
+    private LongObjectMap<Object> identityMap;
+  }
 
-      // each list should only have elements unique by 'id'
-      for (String key : tempMap.keySet()) {
-        List<Object> list = tempMap.get(key);
-        resultMap.put(key, uniqueByIdList(list));
+  // statements queued in write behind mode for a transaction, in the order they were issued
+  private static class WriteBehindQueue {
+    private final List<QueuedBatch> batches = new ArrayList<>();
+    // classes written through the queue in the transaction, flushed or not
+    private final Set<Class<?>> writtenClasses = new HashSet<>();
+
+    // consecutive statements with the same sql go into the same batch
+    void add(
+        String operation,
+        String sql,
+        EntityDescriptor descriptor,
+        Map<String, Object> params,
+        Object id,
+        boolean checkVersion) {
+      QueuedBatch last = batches.isEmpty() ? null : batches.get(batches.size() - 1);
+      if (last == null || !last.sql.equals(sql)) {
+        last = new QueuedBatch(operation, sql, descriptor, checkVersion);
+        batches.add(last);
       }
-      return resultMap;
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+      last.paramsList.add(params);
+      last.ids.add(id);
+      writtenClasses.add(descriptor.getClazz());
+    }
+  }
+
+  private static class QueuedBatch {
+    // the JdbcUtil operation which queued the first statement. For the statement metrics
+    private final String operation;
+    private final String sql;
+    private final EntityDescriptor descriptor;
+    // true for updates of objects with a version. 0 records updated is a failure
+    private final boolean checkVersion;
+    private final List<Map<String, Object>> paramsList = new ArrayList<>();
+    private final List<Object> ids = new ArrayList<>();
+
+    QueuedBatch(String operation, String sql, EntityDescriptor descriptor, boolean checkVersion) {
+      this.operation = operation;
+      this.sql = sql;
+      this.descriptor = descriptor;
+      this.checkVersion = checkVersion;
+    }
+  }
+
+  // the upsert (or insertIfAbsent) sql of a table and the properties for its parameters and
+  // returned columns
+  private static class UpsertStatement {
+    private final String sql;
+    // in parameter order. The expected version is the last parameter when hasVersion
+    private final List<Property> parameterProperties;
+    // in the order of the returning clause. The first one is the id
+    private final List<Property> returnedProperties;
+    private final boolean hasVersion;
+
+    UpsertStatement(
+        String sql,
+        List<Property> parameterProperties,
+        List<Property> returnedProperties,
+        boolean hasVersion) {
+      this.sql = sql;
+      this.parameterProperties = parameterProperties;
+      this.returnedProperties = returnedProperties;
+      this.hasVersion = hasVersion;
     }
   }
 
   /**
-   * Generates a string which can be used in a sql select statement with all columns of the table.
+   * Queries the table of the class for records where the column matches any of the ids.
    *
-   * @param tableName - the Table name
-   * @param tableAlias - the alias being used in the sql statement for the table.
-   * @param includeCommaAtEnd - whether to include a comma at end of string
-   * @return a string for the select columns. Example if tableAlias is 'emp' returns something like:
-   *     "emp.id emp_id, emp.last_name emp_last_name, emp.first_name emp_first_name ....."
+   * <p>With id array binding (default) the ids are sent as a single java.sql.Array parameter
+   * ('column = any(:columnIds)') so there is one query and one cacheable sql string regardless of
+   * the number of ids. Otherwise, to avoid a query being issued with a large number of ids for the
+   * 'IN (:columnIds)' clause, the ids are chunked by IN_CLAUSE_CHUNK_SIZE and multiple queries
+   * issued if needed.
+   *
+   * @param operation - the JdbcUtil operation (toOne, toMany) for the statement metrics
+   * @param clazz - the class of the records
+   * @param columnName - the column to match against the ids
+   * @param idType - the type of the ids. Integer or Long
+   * @param ids - the unique ids
+   * @param orderByClause - the order by clause. Can be null
+   * @return list of objects
    */
-  public String selectCols(String tableName, String tableAlias, boolean includeCommaAtEnd) {
-    List<String> dbColumnNames = getDbColumnNames(tableName);
-    StringBuilder sb = new StringBuilder();
-    for (String colName : dbColumnNames) {
-      sb.append(tableAlias)
-          .append(".")
-          .append(colName)
-          .append(" ")
-          .append(tableAlias)
-          .append("_")
-          .append(colName)
-          .append(",");
+  private <U> List<U> queryByColumnIds(
+      String operation,
+      Class<U> clazz,
+      String columnName,
+      Class<?> idType,
+      List<Object> ids,
+      String orderByClause) {
+    List<U> list = new ArrayList<>();
+    if (Util.isEmpty(ids)) {
+      return list;
     }
-    String str = sb.toString();
-    if (str != null) {
-      return includeCommaAtEnd ? str : str.substring(0, str.length() - 1);
+    flush();
+    String tableName = getEntityDescriptor(clazz).getTableName();
+    String orderBy = Util.isNotEmpty(orderByClause) ? " " + orderByClause : "";
+    RowMapper<U> mapper = getRowMapper(clazz);
+    if (useIdArrayBinding) {
+      String sql =
+          "select * from " + tableName + " where " + columnName + " = any(:columnIds)" + orderBy;
+      MapSqlParameterSource params = new MapSqlParameterSource();
+      params.addValue("columnIds", createSqlArrayValue(idType, ids), Types.ARRAY);
+      long startNanos = startNanos();
+      list.addAll(npJdbcTemplate.query(sql, params, mapper));
+      recordQuery(clazz, operation, sql, startNanos, list.size());
     } else {
-      return null;
+      Collection<List<Object>> chunkedColumnIds = chunkList(ids, IN_CLAUSE_CHUNK_SIZE);
+      for (List<Object> columnIds : chunkedColumnIds) {
+        String sql =
+            "select * from " + tableName + " where " + columnName + " in (:columnIds)" + orderBy;
+        MapSqlParameterSource params = new MapSqlParameterSource("columnIds", columnIds);
+        long startNanos = startNanos();
+        List<U> chunk = npJdbcTemplate.query(sql, params, mapper);
+        recordQuery(clazz, operation, sql, startNanos, chunk.size());
+        list.addAll(chunk);
+      }
     }
+    return list;
   }
 
   /**
    * Builds sql update statement with named parameters for the object.
    *
-   * @param pojo - the object that needs to be update.
+   * @param descriptor - the entity descriptor of the object that needs to be updated.
    * @return sql update string
    */
-  private String buildUpdateSql(Object pojo) {
-    String tableName = convertCamelToSnakeCase(pojo.getClass().getSimpleName());
+  private String buildUpdateSql(EntityDescriptor descriptor) {
+    String tableName = descriptor.getTableName();
 
     // database columns for the tables
     List<String> dbColumnNameList = getDbColumnNames(tableName);
@@ -801,12 +3001,10 @@ public class JdbcUtil {
     }
 
     List<String> updateColumnNameList = new ArrayList<>();
-    BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(pojo);
-    PropertyDescriptor[] propertyDescriptors = bw.getPropertyDescriptors();
-    for (PropertyDescriptor pd : propertyDescriptors) {
-      String columnName = convertCamelToSnakeCase(pd.getName());
+    for (Property property : descriptor.getProperties()) {
+      String columnName = property.getColumnName();
       // skips non db columns and ignore fields like 'id' etc for SET
-      if (!ignoreAttrs.contains(pd.getName()) && dbColumnNameList.contains(columnName)) {
+      if (!ignoreAttrs.contains(property.getName()) && dbColumnNameList.contains(columnName)) {
         updateColumnNameList.add(columnName);
       }
     }
@@ -850,34 +3048,61 @@ public class JdbcUtil {
   }
 
   /**
-   * Used by mappers to instantiate object from the result set
+   * Used by mappers to instantiate object from the result set. The columns are read by index using
+   * the mapping plan.
    *
-   * @param clazz - Class of object to be instantiated
+   * @param plan - The mapping plan for the class, prefix and result set columns
    * @param rs - Sql result set
-   * @param prefix - The sql alias in the query (if any)
-   * @param resultSetColumnNames - the column names in the sql statement.
    * @return Object of type T populated from the data in the result set
    */
-  private <T> T newInstance(
-      Class<T> clazz, ResultSet rs, String prefix, List<String> resultSetColumnNames) {
+  @SuppressWarnings("unchecked")
+  private <T> T newInstance(MappingPlan plan, ResultSet rs) {
+    Object obj;
     try {
-      Object obj = clazz.newInstance();
-      BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(obj);
-      List<String> propertyNames = getPropertyNames(obj);
-      for (String propName : propertyNames) {
-        String columnName = convertCamelToSnakeCase(propName);
-        if (Util.isNotEmpty(prefix)) {
-          columnName = prefix + columnName;
-        }
-        if (resultSetColumnNames.contains(columnName)) {
-          Object columnVal = rs.getObject(columnName);
-          bw.setPropertyValue(propName, columnVal);
-        }
-      }
-      return clazz.cast(obj);
+      obj = plan.newInstance(rs);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
+    takeSnapshot(plan.getDescriptor(), obj);
+    return (T) obj;
+  }
+
+  /**
+   * Gets the property to column index mapping plan. The plan is resolved once per class, column
+   * prefix and result set shape and cached.
+   *
+   * @param clazz - Class of object to be instantiated
+   * @param prefix - The sql alias in the query (if any)
+   * @param resultSetColumnNames - the column names in the sql statement.
+   * @return the mapping plan
+   */
+  private MappingPlan getMappingPlan(
+      Class<?> clazz, String prefix, List<String> resultSetColumnNames) {
+    String cacheKey =
+        clazz.getName()
+            + "|"
+            + (prefix == null ? "" : prefix)
+            + "|"
+            + String.join(",", resultSetColumnNames);
+    MappingPlan plan = mappingPlanCache.get(cacheKey);
+    if (plan == null) {
+      plan = new MappingPlan(getEntityDescriptor(clazz), prefix, resultSetColumnNames);
+      mappingPlanCache.put(cacheKey, plan);
+    }
+    return plan;
+  }
+
+  private MappingPlan getMappingPlan(SelectMapper<?> selectMapper, List<String> columnNames) {
+    return getMappingPlan(selectMapper.getClazz(), selectMapper.getSqlColumnPrefix(), columnNames);
+  }
+
+  // the jdbc index of the mappers 'id' column. Throws exception if it is not in the result set.
+  private int getIdColumnIndex(SelectMapper<?> selectMapper, MappingPlan plan) {
+    if (!plan.hasIdColumn()) {
+      throw new RuntimeException(
+          "Mapper expects '" + selectMapper.getSqlColumnPrefix() + "id' in select statement");
+    }
+    return plan.getIdColumnIndex();
   }
 
   /**
@@ -887,15 +3112,10 @@ public class JdbcUtil {
    * @param pojo - The object to convert
    * @return A map with keys that are in snake case to match database column names
    */
-  private Map<String, Object> convertToDbColumnAttributes(Object pojo) {
-    Map<String, Object> camelCaseAttrs = convertObjectToMap(pojo);
-    Map<String, Object> snakeCaseAttrs = new HashMap<>();
-    for (String key : camelCaseAttrs.keySet()) {
-      // lastName will get converted to last_name
-      String snakeCaseKey = convertCamelToSnakeCase(key);
-      snakeCaseAttrs.put(snakeCaseKey, camelCaseAttrs.get(key));
-    }
-    return snakeCaseAttrs;
+  // package-private for JdbcUtilMappingBenchmark
+  Map<String, Object> convertToDbColumnAttributes(Object pojo) {
+    // lastName will be keyed as last_name
+    return getEntityDescriptor(pojo.getClass()).getPropertyValues(pojo, true);
   }
 
   /**
@@ -904,16 +3124,8 @@ public class JdbcUtil {
    * @param pojo - The object to be converted.
    * @return Map with key: property name, value: object value
    */
-  
   private Map<String, Object> convertObjectToMap(Object pojo) {
-    Map<String, Object> camelCaseAttrs = new HashMap<>();
-    BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(pojo);
-    List<String> propertyNames = getPropertyNames(pojo);
-    for (String propName : propertyNames) {
-      Object propValue = bw.getPropertyValue(propName);
-      camelCaseAttrs.put(propName, propValue);
-    }
-    return camelCaseAttrs;
+    return getEntityDescriptor(pojo.getClass()).getPropertyValues(pojo, false);
   }
 
   /**
@@ -925,13 +3137,20 @@ public class JdbcUtil {
   private List<String> getDbColumnNames(String table) {
     List<String> columns = tableColumnNamesCache.get(table);
     if (columns == null) {
-      columns = new ArrayList<>();
       try {
-        DatabaseMetaData metadata = jdbcTemplate.getDataSource().getConnection().getMetaData();
-        ResultSet resultSet = metadata.getColumns(null, schemaName, table, null);
-        while (resultSet.next()) {
-          columns.add(resultSet.getString("COLUMN_NAME"));
-        }
+        // extractDatabaseMetaData() releases the connection when done
+        columns =
+            JdbcUtils.extractDatabaseMetaData(
+                jdbcTemplate.getDataSource(),
+                metadata -> {
+                  List<String> list = new ArrayList<>();
+                  try (ResultSet resultSet = metadata.getColumns(null, schemaName, table, null)) {
+                    while (resultSet.next()) {
+                      list.add(resultSet.getString("COLUMN_NAME"));
+                    }
+                  }
+                  return list;
+                });
         tableColumnNamesCache.put(table, columns);
       } catch (Exception e) {
         throw new RuntimeException(e);
@@ -940,6 +3159,29 @@ public class JdbcUtil {
     return columns;
   }
 
+  /**
+   * Returns the cached SimpleJdbcInsert for the table, creating it if needed.
+   *
+   * @param tableName - the table name
+   * @param generatedId - true if the id of the table is auto increment in the database
+   * @return the SimpleJdbcInsert
+   */
+  private SimpleJdbcInsert getSimpleJdbcInsert(String tableName, boolean generatedId) {
+    SimpleJdbcInsert jdbcInsert = simpleJdbcInsertCache.get(tableName);
+    if (jdbcInsert == null) {
+      jdbcInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName(tableName);
+      if (schemaName != null) {
+        jdbcInsert.withSchemaName(schemaName);
+      }
+      if (generatedId) {
+        // object whose id in database is auto increment
+        jdbcInsert.usingGeneratedKeyColumns("id");
+      }
+      simpleJdbcInsertCache.put(tableName, jdbcInsert);
+    }
+    return jdbcInsert;
+  }
+
   /**
    * Gets the resultSet column names ie the column names in the 'select' statement of the sql
    *
@@ -961,29 +3203,88 @@ public class JdbcUtil {
     return rsColNames;
   }
 
-  private List<String> getPropertyNames(Object pojo) {
-    List<String> list = objectPropertyNamesCache.get(pojo.getClass().getSimpleName());
-    if (list == null) {
-        BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(pojo);	
-      list = new ArrayList<>();
-      PropertyDescriptor[] propertyDescriptors = bw.getPropertyDescriptors();
-      for (PropertyDescriptor pd : propertyDescriptors) {
-        String propName = pd.getName();
-        // log.debug("Property name:{}" + propName);
-        if ("class".equals(propName)) {
-          continue;
-        } else {
-          list.add(propName);
+  /**
+   * Gets the entity descriptor for the class. The descriptor is built once and cached.
+   *
+   * @param clazz - the class
+   * @return the entity descriptor
+   */
+  private EntityDescriptor getEntityDescriptor(Class<?> clazz) {
+    EntityDescriptor descriptor = entityDescriptorCache.get(clazz);
+    if (descriptor == null) {
+      descriptor =
+          new EntityDescriptor(
+              clazz,
+              convertCamelToSnakeCase(clazz.getSimpleName()),
+              this::convertCamelToSnakeCase);
+      entityDescriptorCache.put(clazz, descriptor);
+    }
+    return descriptor;
+  }
+
+  /**
+   * RowMapper which populates the object using the entity descriptor of the class. The mapping
+   * plan is resolved on the first row of each query. Uses the generated IEntityMapper of the class
+   * when there is one. Can be used in place of BeanPropertyRowMapper for custom queries.
+   *
+   * @param clazz - the class of the object to be mapped
+   * @return the row mapper
+   */
+  public <T> RowMapper<T> getRowMapper(Class<T> clazz) {
+    return new RowMapper<T>() {
+      private MappingPlan plan;
+
+      @Override
+      public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (plan == null) {
+          plan = getMappingPlan(clazz, null, getResultSetColumnNames(rs));
         }
+        return newInstance(plan, rs);
       }
-      objectPropertyNamesCache.put(pojo.getClass().getSimpleName(), list);
+    };
+  }
+
+  // the postgres array element type name for an id type
+  private String getSqlArrayTypeName(Class<?> idType) {
+    return Long.class == idType || long.class == idType ? "bigint" : "integer";
+  }
+
+  // named parameter value which gets bound as a java.sql.Array of the ids
+  private SqlTypeValue createSqlArrayValue(Class<?> idType, Collection<?> ids) {
+    String arrayTypeName = getSqlArrayTypeName(idType);
+    return new AbstractSqlTypeValue() {
+      @Override
+      protected Object createTypeValue(Connection con, int sqlType, String typeName)
+          throws SQLException {
+        return con.createArrayOf(arrayTypeName, ids.toArray());
+      }
+    };
+  }
+
+  private java.sql.Array createSqlArray(
+      PreparedStatement ps, String arrayTypeName, Collection<?> values) throws SQLException {
+    return ps.getConnection().createArrayOf(arrayTypeName, values.toArray());
+  }
+
+  // sets createdOn, createdBy, updatedOn, updatedBy and version for a new object
+  private void setInsertAuditValues(
+      EntityDescriptor descriptor, Object pojo, LocalDateTime now, Object auditOperator) {
+    setPropertyIfExists(descriptor, pojo, createdOnPropertyName, now);
+    if (auditOperatorResolver != null) {
+      setPropertyIfExists(descriptor, pojo, createdByPropertyName, auditOperator);
+      setPropertyIfExists(descriptor, pojo, updatedByPropertyName, auditOperator);
     }
-    return list;
+    setPropertyIfExists(descriptor, pojo, updatedOnPropertyName, now);
+    setPropertyIfExists(descriptor, pojo, versionPropertyName, 1);
   }
- 
-  private Object getSimpleProperty(Object obj, String propertyName) {
-      BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(obj);
-      return bw.getPropertyValue(propertyName);
+
+  // sets the value of the property if the object has the property
+  private void setPropertyIfExists(
+      EntityDescriptor descriptor, Object pojo, String propertyName, Object value) {
+    Property property = descriptor.getProperty(propertyName);
+    if (property != null && property.isWritable()) {
+      property.setValue(pojo, value);
+    }
   }
 
   /**
@@ -1013,29 +3314,127 @@ public class JdbcUtil {
     return camelCase;
   }
 
-  private Collection<List<Integer>> chunkList(List<Integer> list, Integer chunkSize) {
+  private <E> Collection<List<E>> chunkList(List<E> list, Integer chunkSize) {
     AtomicInteger counter = new AtomicInteger();
-    Collection<List<Integer>> result =
+    Collection<List<E>> result =
         list.stream()
             .collect(Collectors.groupingBy(it -> counter.getAndIncrement() / chunkSize))
             .values();
     return result;
   }
 
-  private List<Object> uniqueByIdList(List<Object> list) {
-    if (Util.isNotEmpty(list)) {
-      Map<Integer, Object> idToObjectMap = new LinkedHashMap<>();
-      for (Object obj : list) {
-          BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(obj);  
-        Integer id = (Integer) bw.getPropertyValue("id");
-        if (!idToObjectMap.containsKey(id)) {
-          idToObjectMap.put(id, obj);
-        }
+  // System.nanoTime() for the statement listeners. 0 when there are none so the clock is not read
+  private long startNanos() {
+    return statementListeners.length > 0 ? System.nanoTime() : 0;
+  }
+
+  private void recordQuery(
+      Class<?> clazz, String operation, String sql, long startNanos, int rows) {
+    notifyStatementListeners(clazz, operation, sql, false, false, startNanos, rows);
+  }
+
+  private void recordUpdate(
+      Class<?> clazz, String operation, String sql, long startNanos, int rows) {
+    notifyStatementListeners(clazz, operation, sql, false, true, startNanos, rows);
+  }
+
+  private void notifyStatementListeners(
+      Class<?> clazz,
+      String operation,
+      String statement,
+      boolean named,
+      boolean update,
+      long startNanos,
+      int rows) {
+    IStatementListener[] listeners = statementListeners;
+    if (listeners.length == 0) {
+      return;
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    for (IStatementListener listener : listeners) {
+      listener.statementExecuted(clazz, operation, statement, named, update, rows, elapsedNanos);
+    }
+  }
+
+  // rows affected of an update count or of jdbc batch counts. Negative counts (no info) are skipped
+  private static int getAffectedRows(Object result) {
+    if (result instanceof Number) {
+      return ((Number) result).intValue();
+    }
+    int rows = 0;
+    if (result instanceof int[]) {
+      for (int count : (int[]) result) {
+        rows += Math.max(count, 0);
       }
-      return new ArrayList<Object>(idToObjectMap.values());
-    } else {
-      return list;
+    } else if (result instanceof int[][]) {
+      for (int[] counts : (int[][]) result) {
+        rows += getAffectedRows(counts);
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Converts an id value to long so that Integer and Long ids can be handled the same way. null
+   * returns 0.
+   *
+   * @param id - the id value
+   * @return the id as long
+   */
+  private static long toLongId(Object id) {
+    if (id == null) {
+      return 0;
+    }
+    if (id instanceof Integer || id instanceof Long) {
+      return ((Number) id).longValue();
+    }
+    throw new IllegalArgumentException(
+        "id has to be type of Integer or Long. Found " + id.getClass().getSimpleName());
+  }
+
+  /**
+   * The entity cache key of an id. Callers pass Integer or Long ids for the same record, so the key
+   * is always of the type of the id property of the class. Otherwise findById(5L) and an update of
+   * the object with Integer id 5 would use different entries (or fail on a typed cache).
+   *
+   * @param descriptor - the entity descriptor of the class
+   * @param id - the id. Integer or Long
+   * @return the id as the type of the id property
+   */
+  private static Object toEntityCacheKey(EntityDescriptor descriptor, Object id) {
+    Property idProperty = descriptor.getIdProperty();
+    Class<?> idType = idProperty != null ? idProperty.getType() : null;
+    if (Integer.class == idType || int.class == idType) {
+      return id instanceof Integer ? id : Integer.valueOf(Math.toIntExact(toLongId(id)));
+    }
+    if (Long.class == idType || long.class == idType) {
+      return id instanceof Long ? id : Long.valueOf(toLongId(id));
+    }
+    return id;
+  }
+
+  // map: key - id, value - the object. First object wins for duplicate ids
+  private <U> LongObjectMap<U> toIdMap(List<U> list, Property idProperty) {
+    LongObjectMap<U> map = new LongObjectMap<>(list.size());
+    for (U obj : list) {
+      map.putIfAbsent(toLongId(idProperty.getValue(obj)), obj);
+    }
+    return map;
+  }
+
+  // map: key - value of the join property, value - the objects with that value in list order
+  private <U> LongObjectMap<List<U>> groupById(List<U> list, Property joinProperty) {
+    LongObjectMap<List<U>> map = new LongObjectMap<>();
+    for (U obj : list) {
+      long joinId = toLongId(joinProperty.getValue(obj));
+      List<U> group = map.get(joinId);
+      if (group == null) {
+        group = new ArrayList<>();
+        map.put(joinId, group);
+      }
+      group.add(obj);
     }
+    return map;
   }
   
 }
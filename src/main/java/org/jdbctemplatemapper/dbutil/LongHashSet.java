@@ -0,0 +1,86 @@
+package org.jdbctemplatemapper.dbutil;
+
+/**
+ * Set of primitive longs used by JdbcUtil to track ids already seen while mapping a ResultSet.
+ * Open addressing with linear probing, same as LongObjectMap. Does not support removal.
+ *
+ * <p>Not thread safe.
+ *
+ * @author ajoseph
+ */
+final class LongHashSet {
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+  // 0 marks an empty slot so whether the set contains 0 is held separately
+  private long[] keys;
+  private boolean hasZero;
+  private int size;
+  private int mask;
+  private int shift;
+
+  LongHashSet() {
+    allocate(16);
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean contains(long key) {
+    if (key == 0) {
+      return hasZero;
+    }
+    return keys[slot(key)] == key;
+  }
+
+  /**
+   * Adds the key to the set.
+   *
+   * @param key - the key
+   * @return true if the key was added. false if it was already in the set
+   */
+  boolean add(long key) {
+    if (key == 0) {
+      if (hasZero) {
+        return false;
+      }
+      hasZero = true;
+      size++;
+      return true;
+    }
+    int i = slot(key);
+    if (keys[i] == key) {
+      return false;
+    }
+    keys[i] = key;
+    if (++size > (mask + 1) >>> 1) {
+      rehash();
+    }
+    return true;
+  }
+
+  // index of the slot which holds the key or the empty slot where it should go
+  private int slot(long key) {
+    int i = (int) ((key * GOLDEN_RATIO) >>> shift);
+    while (keys[i] != 0 && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    mask = capacity - 1;
+    shift = 64 - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  private void rehash() {
+    long[] oldKeys = keys;
+    allocate(keys.length << 1);
+    for (long key : oldKeys) {
+      if (key != 0) {
+        keys[slot(key)] = key;
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package org.jdbctemplatemapper.dbutil;
+
+/**
+ * Hash map with primitive long keys used by JdbcUtil to stitch relationships by id. Integer and
+ * Long ids are both stored as long so there is no boxing of the keys and no Map.Entry object per
+ * record. Open addressing with linear probing. Does not support removal.
+ *
+ * <p>Not thread safe.
+ *
+ * @author ajoseph
+ */
+final class LongObjectMap<V> {
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+  // key 0 marks an empty slot so the value for key 0 is held separately
+  private long[] keys;
+  private Object[] values;
+  private boolean hasZeroKey;
+  private Object zeroValue;
+  private int size;
+  private int mask;
+  private int shift;
+
+  LongObjectMap() {
+    this(16);
+  }
+
+  /**
+   * @param expectedSize - the number of entries expected. Avoids resizing.
+   */
+  LongObjectMap(int expectedSize) {
+    // keep the load factor at or below 0.5
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+    allocate(capacity);
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  boolean containsKey(long key) {
+    if (key == 0) {
+      return hasZeroKey;
+    }
+    return keys[slot(key)] == key;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    if (key == 0) {
+      return (V) zeroValue;
+    }
+    int i = slot(key);
+    return keys[i] == key ? (V) values[i] : null;
+  }
+
+  /**
+   * Associates the value with the key.
+   *
+   * @param key - the key
+   * @param value - the value
+   * @return the previous value for the key. null if there was none
+   */
+  @SuppressWarnings("unchecked")
+  V put(long key, V value) {
+    if (key == 0) {
+      Object previous = zeroValue;
+      if (!hasZeroKey) {
+        hasZeroKey = true;
+        size++;
+      }
+      zeroValue = value;
+      return (V) previous;
+    }
+    int i = slot(key);
+    if (keys[i] == key) {
+      Object previous = values[i];
+      values[i] = value;
+      return (V) previous;
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (++size > (mask + 1) >>> 1) {
+      rehash();
+    }
+    return null;
+  }
+
+  /**
+   * Associates the value with the key only if the key is not already in the map.
+   *
+   * @param key - the key
+   * @param value - the value
+   * @return the existing value for the key. null if the value was added
+   */
+  V putIfAbsent(long key, V value) {
+    V existing = get(key);
+    if (existing == null && !containsKey(key)) {
+      put(key, value);
+    }
+    return existing;
+  }
+
+  // index of the slot which holds the key or the empty slot where it should go
+  private int slot(long key) {
+    int i = (int) ((key * GOLDEN_RATIO) >>> shift);
+    while (keys[i] != 0 && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    shift = 64 - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  private void rehash() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(keys.length << 1);
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != 0) {
+        int i = slot(oldKeys[j]);
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+/**
+ * Null safe ResultSet getters used by the generated IEntityMapper classes.
+ *
+ * @author ajoseph
+ */
+public final class MapperSupport {
+  private static final ConversionService CONVERSION_SERVICE =
+      DefaultConversionService.getSharedInstance();
+
+  private MapperSupport() {}
+
+  public static Integer getInteger(ResultSet rs, int columnIndex) throws SQLException {
+    int value = rs.getInt(columnIndex);
+    return rs.wasNull() ? null : value;
+  }
+
+  public static Long getLong(ResultSet rs, int columnIndex) throws SQLException {
+    long value = rs.getLong(columnIndex);
+    return rs.wasNull() ? null : value;
+  }
+
+  public static Double getDouble(ResultSet rs, int columnIndex) throws SQLException {
+    double value = rs.getDouble(columnIndex);
+    return rs.wasNull() ? null : value;
+  }
+
+  public static Boolean getBoolean(ResultSet rs, int columnIndex) throws SQLException {
+    boolean value = rs.getBoolean(columnIndex);
+    return rs.wasNull() ? null : value;
+  }
+
+  public static LocalDate getLocalDate(ResultSet rs, int columnIndex) throws SQLException {
+    Date value = rs.getDate(columnIndex);
+    return value == null ? null : value.toLocalDate();
+  }
+
+  public static LocalDateTime getLocalDateTime(ResultSet rs, int columnIndex)
+      throws SQLException {
+    Timestamp value = rs.getTimestamp(columnIndex);
+    return value == null ? null : value.toLocalDateTime();
+  }
+
+  /**
+   * Reads the column and converts it to the type. Used for types which do not have a specific
+   * getter.
+   *
+   * @param rs - the result set
+   * @param columnIndex - the jdbc column index
+   * @param type - the type to convert to
+   * @return the value. null if the column is null
+   * @throws SQLException on a jdbc failure
+   */
+  public static <T> T getObject(ResultSet rs, int columnIndex, Class<T> type)
+      throws SQLException {
+    Object value = rs.getObject(columnIndex);
+    if (value == null || type.isInstance(value)) {
+      return type.cast(value);
+    }
+    return CONVERSION_SERVICE.convert(value, type);
+  }
+}
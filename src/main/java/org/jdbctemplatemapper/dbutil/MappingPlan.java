@@ -0,0 +1,136 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jdbctemplatemapper.dbutil.EntityDescriptor.Property;
+
+/**
+ * The property to ResultSet column index mapping for a class, for a specific ResultSet shape and
+ * column prefix. It is resolved once and cached by JdbcUtil so mapping a row reads the columns by
+ * index without any column name lookups. If the class has a generated IEntityMapper the row is
+ * mapped by it.
+ *
+ * @author ajoseph
+ */
+final class MappingPlan {
+  private final EntityDescriptor descriptor;
+  private final Property[] properties;
+  private final int[] columnIndexes;
+  // jdbc index of the prefix + 'id' column. 0 if the ResultSet does not have the column
+  private final int idColumnIndex;
+  // generated mapper of the class. null if there is none
+  private final IEntityMapper<Object> entityMapper;
+  // jdbc index for each of entityMapper.getWritablePropertyNames(). 0 if column is not there
+  private final int[] entityMapperColumnIndexes;
+
+  MappingPlan(EntityDescriptor descriptor, String prefix, List<String> resultSetColumnNames) {
+    this(descriptor, prefix, resultSetColumnNames, true);
+  }
+
+  /**
+   * @param descriptor - the entity descriptor of the class
+   * @param prefix - the column prefix. Can be null
+   * @param resultSetColumnNames - the column names of the result set in column order
+   * @param useEntityMapper - false maps through the property accessors even if the class has a
+   *     generated IEntityMapper. The tests compare the two
+   */
+  MappingPlan(
+      EntityDescriptor descriptor,
+      String prefix,
+      List<String> resultSetColumnNames,
+      boolean useEntityMapper) {
+    this.descriptor = descriptor;
+    String columnPrefix = prefix == null ? "" : prefix;
+
+    // Map key - result set column name
+    //     value - jdbc column index (starts at 1)
+    Map<String, Integer> columnIndexMap = new HashMap<>();
+    for (int i = resultSetColumnNames.size(); i > 0; i--) {
+      // first occurrence of a column name wins, same as rs.getObject(columnName)
+      columnIndexMap.put(resultSetColumnNames.get(i - 1), i);
+    }
+
+    List<Property> propertyList = new ArrayList<>();
+    List<Integer> indexList = new ArrayList<>();
+    for (Property property : descriptor.getProperties()) {
+      if (!property.isWritable()) {
+        continue;
+      }
+      Integer index = columnIndexMap.get(columnPrefix + property.getColumnName());
+      if (index != null) {
+        propertyList.add(property);
+        indexList.add(index);
+      }
+    }
+    this.properties = propertyList.toArray(new Property[0]);
+    this.columnIndexes = indexList.stream().mapToInt(Integer::intValue).toArray();
+
+    Integer idIndex = columnIndexMap.get(columnPrefix + "id");
+    this.idColumnIndex = idIndex == null ? 0 : idIndex;
+
+    this.entityMapper = useEntityMapper ? descriptor.getEntityMapper() : null;
+    if (entityMapper != null) {
+      String[] names = entityMapper.getWritablePropertyNames();
+      this.entityMapperColumnIndexes = new int[names.length];
+      for (int i = 0; i < names.length; i++) {
+        Property property = descriptor.getRequiredProperty(names[i]);
+        Integer index = columnIndexMap.get(columnPrefix + property.getColumnName());
+        entityMapperColumnIndexes[i] = index == null ? 0 : index;
+      }
+    } else {
+      this.entityMapperColumnIndexes = null;
+    }
+  }
+
+  EntityDescriptor getDescriptor() {
+    return descriptor;
+  }
+
+  boolean hasIdColumn() {
+    return idColumnIndex > 0;
+  }
+
+  int getIdColumnIndex() {
+    return idColumnIndex;
+  }
+
+  /**
+   * Whether any of the mapped columns of the current row is not null. Used to detect the rows of an
+   * outer join which do not have the object when there is no id column.
+   *
+   * @param rs - the result set positioned on a row
+   * @return true if at least one mapped column has a value
+   * @throws SQLException on a jdbc failure
+   */
+  boolean hasNonNullValue(ResultSet rs) throws SQLException {
+    for (int columnIndex : columnIndexes) {
+      if (rs.getObject(columnIndex) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Instantiates the object and populates it from the current row of the result set.
+   *
+   * @param rs - the result set positioned on a row
+   * @return the populated object
+   * @throws SQLException on a jdbc failure
+   */
+  Object newInstance(ResultSet rs) throws SQLException {
+    if (entityMapper != null) {
+      return entityMapper.mapRow(rs, entityMapperColumnIndexes);
+    }
+    Object obj = descriptor.newInstance();
+    for (int i = 0; i < properties.length; i++) {
+      properties[i].setValue(obj, rs.getObject(columnIndexes[i]));
+    }
+    return obj;
+  }
+}
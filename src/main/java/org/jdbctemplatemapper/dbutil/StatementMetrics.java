@@ -0,0 +1,181 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Micrometer meters for the statements run by JdbcUtil. See JdbcUtil.withMeterRegistry()
+ *
+ * <pre>
+ * jdbcutil.statement      - timer (with percentile histogram) of each statement execution
+ * jdbcutil.rows.returned  - rows read by a query
+ * jdbcutil.rows.affected  - rows inserted/updated/deleted by a statement
+ * </pre>
+ *
+ * All are tagged with entity (class simple name), operation (findById, insert, toMany, query ..)
+ * and statement. The statement of sql generated by JdbcUtil is the table name and a hash of the sql
+ * text (ex: timesheet#5f3c8a21) so different sql of the same operation (dirty tracking column sets,
+ * order by clauses) are told apart without the sql becoming a tag. The sql of each id is logged at
+ * debug level the first time it is seen. Dao statements use the name the dao gives them.
+ *
+ * <p>Meters are created on first use and kept, so recording is a map lookup and no allocation of
+ * tags. Thread safe.
+ *
+ * <p>Registered by JdbcUtil.withMeterRegistry() as one of its statement listeners.
+ *
+ * @author ajoseph
+ */
+@Slf4j
+final class StatementMetrics implements IStatementListener {
+  static final String STATEMENT_TIMER = "jdbcutil.statement";
+  static final String ROWS_RETURNED = "jdbcutil.rows.returned";
+  static final String ROWS_AFFECTED = "jdbcutil.rows.affected";
+
+  private final MeterRegistry registry;
+
+  // Map key - entity class, operation and sql (or dao statement name)
+  //     value - the meters of the statement
+  private final Map<StatementKey, StatementMeters> meters = new ConcurrentHashMap<>();
+
+  StatementMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void statementExecuted(
+      Class<?> clazz,
+      String operation,
+      String statement,
+      boolean named,
+      boolean update,
+      int rows,
+      long elapsedNanos) {
+    StatementMeters statementMeters = getMeters(clazz, operation, statement, named);
+    statementMeters.timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    (update ? statementMeters.rowsAffected : statementMeters.rowsReturned).record(rows);
+  }
+
+  private StatementMeters getMeters(
+      Class<?> clazz, String operation, String statement, boolean named) {
+    StatementKey key = new StatementKey(clazz, operation, statement);
+    StatementMeters statementMeters = meters.get(key);
+    if (statementMeters == null) {
+      statementMeters =
+          meters.computeIfAbsent(key, k -> createMeters(clazz, operation, statement, named));
+    }
+    return statementMeters;
+  }
+
+  private StatementMeters createMeters(
+      Class<?> clazz, String operation, String statement, boolean named) {
+    String statementId = named ? statement : toStatementId(statement);
+    if (!named) {
+      log.debug("jdbcutil statement {} - {}", statementId, statement);
+    }
+    Tags tags =
+        Tags.of(
+            "entity",
+            clazz != null ? clazz.getSimpleName() : "none",
+            "operation",
+            operation,
+            "statement",
+            statementId);
+    Timer timer =
+        Timer.builder(STATEMENT_TIMER)
+            .description("Execution time of the statements run by JdbcUtil")
+            .tags(tags)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(registry);
+    DistributionSummary rowsReturned =
+        DistributionSummary.builder(ROWS_RETURNED)
+            .description("Rows returned by a query")
+            .baseUnit("rows")
+            .tags(tags)
+            .register(registry);
+    DistributionSummary rowsAffected =
+        DistributionSummary.builder(ROWS_AFFECTED)
+            .description("Rows inserted, updated or deleted by a statement")
+            .baseUnit("rows")
+            .tags(tags)
+            .register(registry);
+    return new StatementMeters(timer, rowsReturned, rowsAffected);
+  }
+
+  // the table name and a hash of the sql. ex: "update timesheet set .." -> timesheet#5f3c8a21
+  // The first word after from/into/update/copy is taken as the table.
+  static String toStatementId(String sql) {
+    String[] words = sql.trim().split("\\s+");
+    String table = "";
+    for (int i = 0; i < words.length - 1; i++) {
+      String word = words[i].toLowerCase();
+      if ("from".equals(word)
+          || "into".equals(word)
+          || "update".equals(word)
+          || "copy".equals(word)) {
+        table = words[i + 1];
+        break;
+      }
+    }
+    if (table.startsWith("(")) {
+      // sub query. ex: select .. from (select ..
+      table = "";
+    }
+    return String.format("%s#%08x", table, sql.hashCode());
+  }
+
+  private static final class StatementMeters {
+    private final Timer timer;
+    private final DistributionSummary rowsReturned;
+    private final DistributionSummary rowsAffected;
+
+    StatementMeters(
+        Timer timer, DistributionSummary rowsReturned, DistributionSummary rowsAffected) {
+      this.timer = timer;
+      this.rowsReturned = rowsReturned;
+      this.rowsAffected = rowsAffected;
+    }
+  }
+
+  private static final class StatementKey {
+    private final Class<?> clazz;
+    private final String operation;
+    private final String statement;
+    private final int hash;
+
+    StatementKey(Class<?> clazz, String operation, String statement) {
+      this.clazz = clazz;
+      this.operation = operation;
+      this.statement = statement;
+      // String caches its hash code and the sql of cached statements is the same instance
+      this.hash =
+          31 * (31 * Objects.hashCode(clazz) + operation.hashCode()) + statement.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof StatementKey)) {
+        return false;
+      }
+      StatementKey other = (StatementKey) obj;
+      return clazz == other.clazz
+          && operation.equals(other.operation)
+          && statement.equals(other.statement);
+    }
+  }
+}
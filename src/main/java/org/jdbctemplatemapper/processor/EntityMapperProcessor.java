@@ -0,0 +1,342 @@
+package org.jdbctemplatemapper.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a IEntityMapper (row mapper and parameter binder) for each class annotated with
+ * GenerateMapper. The generated class is class name + 'JdbcMapper' in the same package and maps
+ * with plain getter/setter calls so there is no reflection when mapping.
+ *
+ * <p>Properties are the fields of the class and its super classes with lombok accessors (@Data,
+ * @Getter, @Setter, @Value) plus any explicit public getXxx()/isXxx()/setXxx() methods, which
+ * matches what java bean introspection finds at runtime.
+ *
+ * <p>Enabled with the maven profile 'generated-mappers'.
+ *
+ * @author ajoseph
+ */
+@SupportedAnnotationTypes("org.jdbctemplatemapper.dbutil.GenerateMapper")
+public class EntityMapperProcessor extends AbstractProcessor {
+  private static final String SUFFIX = "JdbcMapper";
+
+  // Map key - property type
+  //     value - expression reading the column. %s is the jdbc column index variable
+  private static final Map<String, String> RESULT_SET_GETTERS = new LinkedHashMap<>();
+
+  static {
+    String support = "org.jdbctemplatemapper.dbutil.MapperSupport.";
+    RESULT_SET_GETTERS.put("java.lang.String", "rs.getString(%s)");
+    RESULT_SET_GETTERS.put("java.lang.Integer", support + "getInteger(rs, %s)");
+    RESULT_SET_GETTERS.put("java.lang.Long", support + "getLong(rs, %s)");
+    RESULT_SET_GETTERS.put("java.lang.Double", support + "getDouble(rs, %s)");
+    RESULT_SET_GETTERS.put("java.lang.Boolean", support + "getBoolean(rs, %s)");
+    RESULT_SET_GETTERS.put("java.math.BigDecimal", "rs.getBigDecimal(%s)");
+    RESULT_SET_GETTERS.put("java.time.LocalDate", support + "getLocalDate(rs, %s)");
+    RESULT_SET_GETTERS.put("java.time.LocalDateTime", support + "getLocalDateTime(rs, %s)");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          error(element, "@GenerateMapper can only be used on classes");
+          continue;
+        }
+        TypeElement type = (TypeElement) element;
+        try {
+          generate(type);
+        } catch (IOException e) {
+          error(type, "Failed to generate mapper: " + e.getMessage());
+        }
+      }
+    }
+    return true;
+  }
+
+  private void generate(TypeElement type) throws IOException {
+    Map<String, PropertyInfo> properties = new LinkedHashMap<>();
+    collectProperties(type, properties);
+
+    String packageName =
+        ((PackageElement) processingEnv.getElementUtils().getPackageOf(type))
+            .getQualifiedName()
+            .toString();
+    String className = type.getQualifiedName().toString();
+    String mapperName = type.getSimpleName() + SUFFIX;
+
+    List<PropertyInfo> writable = new ArrayList<>();
+    List<PropertyInfo> readable = new ArrayList<>();
+    for (PropertyInfo property : properties.values()) {
+      if (property.setter != null) {
+        writable.add(property);
+      }
+      if (property.getter != null) {
+        readable.add(property);
+      }
+    }
+
+    StringBuilder sb = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      sb.append("package ").append(packageName).append(";\n\n");
+    }
+    sb.append("// Generated by ").append(getClass().getName()).append(". Do not edit.\n");
+    sb.append("@SuppressWarnings(\"all\")\n");
+    sb.append("public final class ")
+        .append(mapperName)
+        .append(" implements org.jdbctemplatemapper.dbutil.IEntityMapper<")
+        .append(className)
+        .append("> {\n");
+    sb.append("  private static final String[] WRITABLE_PROPERTY_NAMES = {")
+        .append(quotedNames(writable))
+        .append("};\n");
+    sb.append("  private static final String[] READABLE_PROPERTY_NAMES = {")
+        .append(quotedNames(readable))
+        .append("};\n\n");
+
+    sb.append("  public String[] getWritablePropertyNames() {\n");
+    sb.append("    return WRITABLE_PROPERTY_NAMES.clone();\n  }\n\n");
+    sb.append("  public String[] getReadablePropertyNames() {\n");
+    sb.append("    return READABLE_PROPERTY_NAMES.clone();\n  }\n\n");
+
+    sb.append("  public ")
+        .append(className)
+        .append(" mapRow(java.sql.ResultSet rs, int[] columnIndexes)")
+        .append(" throws java.sql.SQLException {\n");
+    sb.append("    ").append(className).append(" obj = new ").append(className).append("();\n");
+    sb.append("    int i;\n");
+    for (int idx = 0; idx < writable.size(); idx++) {
+      PropertyInfo property = writable.get(idx);
+      sb.append("    if ((i = columnIndexes[").append(idx).append("]) > 0) {\n");
+      TypeMirror propertyType = property.setterType;
+      if (propertyType.getKind() == TypeKind.CHAR) {
+        // same as the reflection mapping, null leaves the default value
+        sb.append("      Character v = ")
+            .append(String.format(getObjectExpression("java.lang.Character"), "i"))
+            .append(";\n");
+        sb.append("      if (v != null) {\n");
+        sb.append("        obj.").append(property.setter).append("(v);\n");
+        sb.append("      }\n");
+      } else if (propertyType.getKind().isPrimitive()) {
+        String primitive = erasure(propertyType);
+        String getter =
+            "get" + Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+        sb.append("      ").append(primitive).append(" v = rs.").append(getter).append("(i);\n");
+        sb.append("      if (!rs.wasNull()) {\n");
+        sb.append("        obj.").append(property.setter).append("(v);\n");
+        sb.append("      }\n");
+      } else {
+        String typeName = erasure(propertyType);
+        String expression = RESULT_SET_GETTERS.get(typeName);
+        if (expression == null) {
+          expression = getObjectExpression(typeName);
+        }
+        sb.append("      obj.")
+            .append(property.setter)
+            .append("(")
+            .append(String.format(expression, "i"))
+            .append(");\n");
+      }
+      sb.append("    }\n");
+    }
+    sb.append("    return obj;\n  }\n\n");
+
+    sb.append("  public Object[] getValues(").append(className).append(" obj) {\n");
+    sb.append("    return new Object[] {\n");
+    for (int idx = 0; idx < readable.size(); idx++) {
+      sb.append("      obj.").append(readable.get(idx).getter).append("()");
+      sb.append(idx < readable.size() - 1 ? ",\n" : "\n");
+    }
+    sb.append("    };\n  }\n");
+    sb.append("}\n");
+
+    String qualifiedMapperName =
+        packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+    try (Writer writer =
+        processingEnv.getFiler().createSourceFile(qualifiedMapperName, type).openWriter()) {
+      writer.write(sb.toString());
+    }
+  }
+
+  /**
+   * Collects the properties of the class, super class properties first.
+   *
+   * @param type - the class
+   * @param properties - Map key - property name, value - property info
+   */
+  private void collectProperties(TypeElement type, Map<String, PropertyInfo> properties) {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() == TypeKind.DECLARED) {
+      TypeElement superType = (TypeElement) ((DeclaredType) superclass).asElement();
+      if (!"java.lang.Object".equals(superType.getQualifiedName().toString())) {
+        collectProperties(superType, properties);
+      }
+    }
+
+    boolean classGetters = hasAnnotation(type, "lombok.Data", "lombok.Getter", "lombok.Value");
+    boolean classSetters = hasAnnotation(type, "lombok.Data", "lombok.Setter");
+    for (Element member : type.getEnclosedElements()) {
+      if (member.getKind() != ElementKind.FIELD
+          || member.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+      VariableElement field = (VariableElement) member;
+      String name = field.getSimpleName().toString();
+      boolean isBoolean = field.asType().getKind() == TypeKind.BOOLEAN;
+      // lombok names the accessors of boolean field 'isActive' isActive() and setActive()
+      boolean hasIsPrefix =
+          isBoolean
+              && name.length() > 2
+              && name.startsWith("is")
+              && Character.isUpperCase(name.charAt(2));
+      String baseName = hasIsPrefix ? name.substring(2) : name;
+      String capitalized = Character.toUpperCase(baseName.charAt(0)) + baseName.substring(1);
+      PropertyInfo property = getOrCreate(properties, decapitalize(capitalized));
+      if (classGetters || hasAnnotation(field, "lombok.Getter")) {
+        property.getter = (isBoolean ? "is" : "get") + capitalized;
+      }
+      if ((classSetters || hasAnnotation(field, "lombok.Setter"))
+          && !field.getModifiers().contains(Modifier.FINAL)) {
+        property.setter = "set" + capitalized;
+        property.setterType = field.asType();
+      }
+    }
+
+    for (Element member : type.getEnclosedElements()) {
+      if (member.getKind() != ElementKind.METHOD
+          || !member.getModifiers().contains(Modifier.PUBLIC)
+          || member.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+      ExecutableElement method = (ExecutableElement) member;
+      String methodName = method.getSimpleName().toString();
+      List<? extends VariableElement> params = method.getParameters();
+      TypeMirror returnType = method.getReturnType();
+      if (methodName.startsWith("get")
+          && methodName.length() > 3
+          && params.isEmpty()
+          && returnType.getKind() != TypeKind.VOID) {
+        getOrCreate(properties, decapitalize(methodName.substring(3))).getter = methodName;
+      } else if (methodName.startsWith("is")
+          && methodName.length() > 2
+          && params.isEmpty()
+          && returnType.getKind() == TypeKind.BOOLEAN) {
+        getOrCreate(properties, decapitalize(methodName.substring(2))).getter = methodName;
+      } else if (methodName.startsWith("set") && methodName.length() > 3 && params.size() == 1) {
+        PropertyInfo property = getOrCreate(properties, decapitalize(methodName.substring(3)));
+        property.setter = methodName;
+        property.setterType = params.get(0).asType();
+      }
+    }
+    // fields without accessors are not properties
+    properties.values().removeIf(p -> p.getter == null && p.setter == null);
+  }
+
+  private PropertyInfo getOrCreate(Map<String, PropertyInfo> properties, String name) {
+    PropertyInfo property = properties.get(name);
+    if (property == null) {
+      property = new PropertyInfo(name);
+      properties.put(name, property);
+    }
+    return property;
+  }
+
+  private boolean hasAnnotation(Element element, String... annotationNames) {
+    for (javax.lang.model.element.AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      String name = mirror.getAnnotationType().toString();
+      for (String annotationName : annotationNames) {
+        if (annotationName.equals(name)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private String getObjectExpression(String typeName) {
+    return "("
+        + typeName
+        + ") org.jdbctemplatemapper.dbutil.MapperSupport.getObject(rs, %s, "
+        + typeName
+        + ".class)";
+  }
+
+  // TypeMirror.toString() includes type annotations (@NotBlank etc) so build the name from the
+  // elements instead
+  private String erasure(TypeMirror type) {
+    TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+    if (erased.getKind() == TypeKind.DECLARED) {
+      return ((TypeElement) ((DeclaredType) erased).asElement()).getQualifiedName().toString();
+    }
+    if (erased.getKind() == TypeKind.ARRAY) {
+      return erasure(((ArrayType) erased).getComponentType()) + "[]";
+    }
+    if (erased.getKind().isPrimitive()) {
+      return erased.getKind().name().toLowerCase(Locale.ROOT);
+    }
+    return erased.toString();
+  }
+
+  private String quotedNames(List<PropertyInfo> properties) {
+    List<String> names = new ArrayList<>();
+    for (PropertyInfo property : properties) {
+      names.add("\"" + property.name + "\"");
+    }
+    return String.join(", ", names);
+  }
+
+  // same as java.beans.Introspector.decapitalize()
+  private static String decapitalize(String name) {
+    if (name.length() > 1
+        && Character.isUpperCase(name.charAt(1))
+        && Character.isUpperCase(name.charAt(0))) {
+      return name;
+    }
+    return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+  private static class PropertyInfo {
+    private final String name;
+    private String getter;
+    private String setter;
+    // the parameter type of the setter
+    private TypeMirror setterType;
+
+    PropertyInfo(String name) {
+      this.name = name;
+    }
+  }
+}
@@ -3,6 +3,8 @@ package org.skillsdemo.common;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.jboss.logging.MDC;
@@ -36,6 +38,24 @@ public class AppUtil {
     return appUserPrincipal.getPerson().getId();
   }
 
+  /**
+   * Waits for the future and throws the exception of the task itself instead of the wrapping
+   * CompletionException so exception handlers (ApplicationExceptionHandler etc) see it.
+   *
+   * @param future - the future
+   * @return result of the future
+   */
+  public static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
   public static String getFormattedDate(LocalDate date) {
     if (date != null) {
       return date.format(usDateFormat);
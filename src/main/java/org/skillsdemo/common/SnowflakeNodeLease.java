@@ -0,0 +1,160 @@
+package org.skillsdemo.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Claims a TwitterSnowflake node id (0 - 1023) which no other running application instance is
+ * using. The claim is a row in table snowflake_node_lease with an expiry. A background thread
+ * renews the lease every third of the lease time. Rows which were not renewed before they expired
+ * (instance crashed etc) can be claimed by other instances.
+ *
+ * <p>isValid() turns false if a renewal finds the lease was taken over or if the lease could not be
+ * renewed in time (database down etc). TwitterSnowflake refuses to generate ids with a lease which
+ * is not valid. The local deadline ends a fifth of the lease time before the database expiry so
+ * the instance stops using the node id before another instance can claim it.
+ *
+ * @author ajoseph
+ */
+@Slf4j
+public class SnowflakeNodeLease implements AutoCloseable {
+  private static final int MAX_NODE_ID = 1023;
+  private static final int CLAIM_ATTEMPTS = 5;
+
+  // picks the lowest node id that is free or expired. If another instance claims the same id at
+  // the same time the conflict update does not match and no row is returned.
+  private static final String CLAIM_SQL =
+      "insert into snowflake_node_lease (node_id, owner, claimed_on, expires_at)"
+          + " select n, ?, now(), now() + make_interval(secs => ?)"
+          + " from generate_series(0, ?) n"
+          + " where not exists (select 1 from snowflake_node_lease l"
+          + "                   where l.node_id = n and l.expires_at > now())"
+          + " order by n limit 1"
+          + " on conflict (node_id) do update"
+          + " set owner = excluded.owner, claimed_on = excluded.claimed_on,"
+          + " expires_at = excluded.expires_at"
+          + " where snowflake_node_lease.expires_at <= now()"
+          + " returning node_id";
+
+  private static final String RENEW_SQL =
+      "update snowflake_node_lease set expires_at = now() + make_interval(secs => ?)"
+          + " where node_id = ? and owner = ?";
+
+  private static final String RELEASE_SQL =
+      "delete from snowflake_node_lease where node_id = ? and owner = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final long leaseSeconds;
+  private final String owner;
+  private final int nodeId;
+  private final ScheduledExecutorService renewer;
+
+  // System.nanoTime() after which the lease can no longer be trusted
+  private volatile long validUntilNanos;
+  private volatile boolean lost = false;
+
+  /**
+   * Claims a node id and starts renewing it.
+   *
+   * @param jdbcTemplate - the jdbcTemplate
+   * @param leaseSeconds - how long a claim is good for without renewal
+   */
+  public SnowflakeNodeLease(JdbcTemplate jdbcTemplate, long leaseSeconds) {
+    if (leaseSeconds < 3) {
+      throw new IllegalArgumentException("leaseSeconds has to be at least 3");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.leaseSeconds = leaseSeconds;
+    this.owner = createOwner();
+    this.nodeId = claim();
+
+    this.renewer =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "snowflake-node-lease-" + nodeId);
+              thread.setDaemon(true);
+              return thread;
+            });
+    long renewMillis = TimeUnit.SECONDS.toMillis(leaseSeconds) / 3;
+    renewer.scheduleWithFixedDelay(this::renew, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+    log.info("Claimed snowflake node id {} for {}", nodeId, owner);
+  }
+
+  public int getNodeId() {
+    return nodeId;
+  }
+
+  public String getOwner() {
+    return owner;
+  }
+
+  /**
+   * @return true if the node id is still leased to this instance
+   */
+  public boolean isValid() {
+    return !lost && System.nanoTime() - validUntilNanos < 0;
+  }
+
+  /** Stops renewing and frees the node id for other instances. */
+  @Override
+  public void close() {
+    renewer.shutdownNow();
+    lost = true;
+    try {
+      jdbcTemplate.update(RELEASE_SQL, nodeId, owner);
+    } catch (Exception e) {
+      // the lease will expire on its own
+      log.warn("Could not release snowflake node id {}: {}", nodeId, e.getMessage());
+    }
+  }
+
+  private int claim() {
+    for (int i = 0; i < CLAIM_ATTEMPTS; i++) {
+      long startNanos = System.nanoTime();
+      List<Integer> claimed =
+          jdbcTemplate.queryForList(CLAIM_SQL, Integer.class, owner, leaseSeconds, MAX_NODE_ID);
+      if (!claimed.isEmpty()) {
+        validUntilNanos = startNanos + safeLeaseNanos();
+        return claimed.get(0);
+      }
+    }
+    throw new IllegalStateException(
+        "Could not claim a snowflake node id. All " + (MAX_NODE_ID + 1) + " may be in use");
+  }
+
+  private void renew() {
+    if (lost) {
+      return;
+    }
+    long startNanos = System.nanoTime();
+    try {
+      if (jdbcTemplate.update(RENEW_SQL, leaseSeconds, nodeId, owner) == 1) {
+        validUntilNanos = startNanos + safeLeaseNanos();
+      } else {
+        lost = true;
+        log.error("Snowflake node id {} lease was lost. Ids can not be generated", nodeId);
+      }
+    } catch (Exception e) {
+      // try again on the next run. isValid() turns false if the deadline passes before that
+      log.warn("Could not renew snowflake node id {}: {}", nodeId, e.getMessage());
+    }
+  }
+
+  // the local deadline ends before the database expiry to allow for renewal latency and clocks
+  private long safeLeaseNanos() {
+    return TimeUnit.SECONDS.toNanos(leaseSeconds) * 4 / 5;
+  }
+
+  private static String createOwner() {
+    // jvm name is pid@hostname
+    String owner =
+        ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString();
+    return owner.length() > 100 ? owner.substring(owner.length() - 100) : owner;
+  }
+}
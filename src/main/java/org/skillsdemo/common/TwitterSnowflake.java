@@ -2,8 +2,11 @@ package org.skillsdemo.common;
 
 import java.net.NetworkInterface;
 import java.security.SecureRandom;
-import java.time.Instant;
 import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 
 /**
  * Sequence generator that will generate unique ids of type 'long' in a distributed environment. 
@@ -15,6 +18,14 @@ import java.util.Enumeration;
  * 
  * Code for this class is copied from below:
  * https://github.com/callicoder/java-snowflake/blob/master/src/main/java/com/callicoder/snowflake/Snowflake.java
+ *
+ * <p>Changed to be lock free. The last timestamp and the last sequence used are packed into one
+ * AtomicLong and ids are reserved with compareAndSet() instead of synchronizing on the generator.
+ * nextIds() reserves a contiguous range of ids with one compareAndSet(). When the sequence for the
+ * current millisecond is exhausted callers back off (see withBackoffNanos()) instead of spinning.
+ *
+ * <p>In a cluster use the SnowflakeNodeLease constructor so every instance gets its own node id.
+ * Small backward clock steps (ntp etc) are waited out, see withMaxClockBackwardMillis().
  */
 public class TwitterSnowflake {
   // private static final int UNUSED_BITS = 1; // Sign bit, Unused (always set to 0)
@@ -28,20 +39,32 @@ public class TwitterSnowflake {
   // Custom Epoch (January 1, 2015 Midnight UTC = 2015-01-01T00:00:00Z)
   private static final long DEFAULT_CUSTOM_EPOCH = 1420070400000L;
 
+  // default time to park when the sequence of the current millisecond is exhausted
+  private static final long DEFAULT_BACKOFF_NANOS = 50_000L;
+
+  // default of how far the clock can move back before nextId() fails instead of waiting
+  private static final long DEFAULT_MAX_CLOCK_BACKWARD_MILLIS = 10L;
+
   private final long nodeId;
   private final long customEpoch;
 
-  private volatile long lastTimestamp = -1L;
-  private volatile long sequence = 0L;
+  // null if the node id was not leased
+  private final SnowflakeNodeLease lease;
+
+  // timestamp of the last id handed out << SEQUENCE_BITS | sequence of the last id handed out
+  private final AtomicLong state = new AtomicLong(-1L);
+
+  // nanos to park when the sequence is exhausted. 0 - Thread.yield()
+  private volatile long backoffNanos = DEFAULT_BACKOFF_NANOS;
+
+  private volatile long maxClockBackwardMillis = DEFAULT_MAX_CLOCK_BACKWARD_MILLIS;
+
+  // current time in milliseconds
+  private volatile LongSupplier clock = System::currentTimeMillis;
 
   // Create Snowflake with a nodeId and custom epoch
   public TwitterSnowflake(long nodeId, long customEpoch) {
-    if (nodeId < 0 || nodeId > maxNodeId) {
-      throw new IllegalArgumentException(
-          String.format("NodeId must be between %d and %d", 0, maxNodeId));
-    }
-    this.nodeId = nodeId;
-    this.customEpoch = customEpoch;
+    this(nodeId, customEpoch, null);
   }
 
   // Create Snowflake with a nodeId
@@ -53,45 +76,157 @@ public class TwitterSnowflake {
   public TwitterSnowflake() {
     this.nodeId = createNodeId();
     this.customEpoch = DEFAULT_CUSTOM_EPOCH;
+    this.lease = null;
+  }
+
+  // Create Snowflake with a nodeId leased from the database. ids are only generated while the
+  // lease is valid.
+  public TwitterSnowflake(SnowflakeNodeLease lease) {
+    this(lease.getNodeId(), DEFAULT_CUSTOM_EPOCH, lease);
   }
 
-  public synchronized long nextId() {
-    long currentTimestamp = timestamp();
+  private TwitterSnowflake(long nodeId, long customEpoch, SnowflakeNodeLease lease) {
+    if (nodeId < 0 || nodeId > maxNodeId) {
+      throw new IllegalArgumentException(
+          String.format("NodeId must be between %d and %d", 0, maxNodeId));
+    }
+    this.nodeId = nodeId;
+    this.customEpoch = customEpoch;
+    this.lease = lease;
+  }
 
-    if (currentTimestamp < lastTimestamp) {
-      throw new IllegalStateException("Invalid System Clock!");
+  /**
+   * How long a thread waits when the 4096 ids of the current millisecond are used up before it
+   * checks the clock again.
+   *
+   * @param backoffNanos - nanos to park the thread. 0 yields the thread instead
+   * @return this
+   */
+  public TwitterSnowflake withBackoffNanos(long backoffNanos) {
+    if (backoffNanos < 0) {
+      throw new IllegalArgumentException("backoffNanos can not be negative");
     }
+    this.backoffNanos = backoffNanos;
+    return this;
+  }
 
-    if (currentTimestamp == lastTimestamp) {
-      sequence = (sequence + 1) & maxSequence;
-      if (sequence == 0) {
-        // Sequence Exhausted, wait till next millisecond.
-        currentTimestamp = waitNextMillis(currentTimestamp);
+  /**
+   * If the clock moves back by up to this many milliseconds id generation waits for the clock to
+   * catch up. Larger steps throw IllegalStateException since waiting would stall callers too long.
+   *
+   * @param maxClockBackwardMillis - the longest wait. 0 always throws like the original code
+   * @return this
+   */
+  public TwitterSnowflake withMaxClockBackwardMillis(long maxClockBackwardMillis) {
+    if (maxClockBackwardMillis < 0) {
+      throw new IllegalArgumentException("maxClockBackwardMillis can not be negative");
+    }
+    this.maxClockBackwardMillis = maxClockBackwardMillis;
+    return this;
+  }
+
+  // the tests replace the clock to move it back
+  TwitterSnowflake withClock(LongSupplier clock) {
+    this.clock = clock;
+    return this;
+  }
+
+  public long nextId() {
+    long first = reserve(1);
+    return toId(first >> SEQUENCE_BITS, first & maxSequence);
+  }
+
+  /**
+   * Get the next n ids. Ids are reserved in contiguous ranges, one range per millisecond, so ids
+   * of a call are ascending and mostly consecutive.
+   *
+   * @param n - number of ids
+   * @return the ids
+   */
+  public long[] nextIds(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("n has to be greater than 0");
+    }
+    long[] ids = new long[n];
+    int idx = 0;
+    while (idx < n) {
+      int count = n - idx;
+      long first = reserve(count);
+      long timestamp = first >> SEQUENCE_BITS;
+      long firstSequence = first & maxSequence;
+      long reservedCount = reservedCount(count, firstSequence);
+      for (long seq = firstSequence; seq < firstSequence + reservedCount; seq++) {
+        ids[idx++] = toId(timestamp, seq);
       }
-    } else {
-      // reset sequence to start with zero for the next millisecond
-      sequence = 0;
     }
+    return ids;
+  }
 
-    lastTimestamp = currentTimestamp;
+  // Reserves up to count ids of a single millisecond with one compareAndSet(). Returns the
+  // timestamp << SEQUENCE_BITS | first sequence reserved. The number of ids reserved is
+  // reservedCount(count, first sequence).
+  private long reserve(int count) {
+    if (lease != null && !lease.isValid()) {
+      throw new IllegalStateException("Lease of snowflake node id " + nodeId + " is lost");
+    }
+    while (true) {
+      // read the state before the clock so a timestamp saved by another thread is never ahead of
+      // the one read here unless the clock really moved back
+      long current = state.get();
+      long currentTimestamp = timestamp();
+      long lastTimestamp = current >> SEQUENCE_BITS;
 
-    long id =
-        currentTimestamp << (NODE_ID_BITS + SEQUENCE_BITS) | (nodeId << SEQUENCE_BITS) | sequence;
+      if (currentTimestamp < lastTimestamp) {
+        long behindMillis = lastTimestamp - currentTimestamp;
+        if (behindMillis > maxClockBackwardMillis) {
+          throw new IllegalStateException(
+              "Invalid System Clock! Moved back " + behindMillis + " milliseconds");
+        }
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(behindMillis));
+        continue;
+      }
+
+      long firstSequence;
+      if (currentTimestamp == lastTimestamp) {
+        long sequence = current & maxSequence;
+        if (sequence == maxSequence) {
+          // Sequence Exhausted, wait till next millisecond.
+          backoff();
+          continue;
+        }
+        firstSequence = sequence + 1;
+      } else {
+        // sequence starts with zero for a new millisecond
+        firstSequence = 0;
+      }
 
-    return id;
+      long lastSequence = firstSequence + reservedCount(count, firstSequence) - 1;
+      if (state.compareAndSet(current, currentTimestamp << SEQUENCE_BITS | lastSequence)) {
+        return currentTimestamp << SEQUENCE_BITS | firstSequence;
+      }
+    }
+  }
+
+  private static long reservedCount(int count, long firstSequence) {
+    return Math.min(count, maxSequence - firstSequence + 1);
+  }
+
+  private long toId(long timestamp, long sequence) {
+    return timestamp << (NODE_ID_BITS + SEQUENCE_BITS) | (nodeId << SEQUENCE_BITS) | sequence;
   }
 
   // Get current timestamp in milliseconds, adjust for the custom epoch.
   private long timestamp() {
-    return Instant.now().toEpochMilli() - customEpoch;
+    return clock.getAsLong() - customEpoch;
   }
 
-  // Block and wait till next millisecond
-  private long waitNextMillis(long currentTimestamp) {
-    while (currentTimestamp == lastTimestamp) {
-      currentTimestamp = timestamp();
+  private void backoff() {
+    long nanos = backoffNanos;
+    if (nanos == 0) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(nanos);
     }
-    return currentTimestamp;
   }
 
   private long createNodeId() {
@@ -0,0 +1,46 @@
+package org.skillsdemo.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.sql.DataSource;
+
+import org.skillsdemo.framework.ContextPropagatingTaskDecorator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Executor for queries run in parallel with JdbcUtil/BaseDao *Async() methods.
+ *
+ * <p>Every running query holds a connection, so the executor uses half of the connection pool and
+ * leaves the rest for request threads. When all threads are busy and the queue is full the query
+ * runs on the calling thread (CallerRunsPolicy) instead of failing or waiting. The security context
+ * and MDC of the caller are copied to the query thread.
+ *
+ * @author ajoseph
+ */
+@Configuration
+public class AsyncQueryConfig {
+  private static final int QUEUE_CAPACITY = 100;
+
+  @Bean(name = "queryExecutor")
+  public ThreadPoolTaskExecutor queryExecutor(@Qualifier("sqlDataSource") DataSource dataSource) {
+    int poolSize = 10; // hikari default
+    if (dataSource instanceof HikariDataSource) {
+      poolSize = ((HikariDataSource) dataSource).getMaximumPoolSize();
+    }
+    int threads = Math.max(1, poolSize / 2);
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(QUEUE_CAPACITY);
+    executor.setThreadNamePrefix("query-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+    return executor;
+  }
+}
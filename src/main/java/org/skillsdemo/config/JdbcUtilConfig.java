@@ -1,17 +1,40 @@
 package org.skillsdemo.config;
 
+import org.jdbctemplatemapper.dbutil.IdStrategy;
 import org.jdbctemplatemapper.dbutil.JdbcUtil;
 import org.skillsdemo.common.AuditOperatorResolver;
+import org.skillsdemo.common.TwitterSnowflake;
+import org.skillsdemo.framework.RequestStatementTracker;
+import org.skillsdemo.model.Person;
+import org.skillsdemo.model.PersonCredential;
+import org.skillsdemo.model.PersonProject;
+import org.skillsdemo.model.Project;
+import org.skillsdemo.model.Timesheet;
+import org.skillsdemo.model.TimesheetLine;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Component
 public class JdbcUtilConfig {
 
   @Bean(name = "jdbcUtil")
-  public JdbcUtil jdbcUtil(@Qualifier("npJdbcTemplate") NamedParameterJdbcTemplate npJdbcTemplate) {
+  public JdbcUtil jdbcUtil(
+      @Qualifier("npJdbcTemplate") NamedParameterJdbcTemplate npJdbcTemplate,
+      @Qualifier("SequenceGenerator") TwitterSnowflake sequenceGenerator,
+      @Qualifier("queryExecutor") ThreadPoolTaskExecutor queryExecutor,
+      CacheManager cacheManager,
+      MeterRegistry meterRegistry,
+      @Value("${jdbcutil.metrics.enabled:true}") boolean metricsEnabled,
+      RequestStatementTracker requestStatementTracker,
+      StatementBudgetProperties statementBudgetProperties) {
     JdbcUtil jdbcUtil = new JdbcUtil(npJdbcTemplate);
     jdbcUtil
         .withSchemaName("public")
@@ -20,8 +43,47 @@ public class JdbcUtilConfig {
         .withCreatedByPropertyName("createdBy")
         .withUpdatedOnPropertyName("updatedOn")
         .withUpdatedByPropertyName("updatedBy")
-        .withVersionPropertyName("version");
+        .withVersionPropertyName("version")
+        .withIdArrayBinding(true)
+        // findById() caches for reference data. see ehcache.xml
+        .withEntityCache(Person.class, cacheManager.getCache("personEntityCache"))
+        .withEntityCache(Project.class, cacheManager.getCache("projectEntityCache"))
+        // timesheet saves mostly change status and comments. only write the changed columns
+        .withDirtyTracking(Timesheet.class)
+        // queue inserts/updates of assigned-id entities and send them as batches at commit
+        .withWriteBehind(true)
+        // timesheet and timesheet line ids are fetched from the database 50 at a time
+        .withSequenceBlockSize(50)
+        // assign ids before the insert so timesheet lines are inserted as plain jdbc batches.
+        // ids are sent to the browser as json numbers so SNOWFLAKE ids (larger than javascript
+        // Number.MAX_SAFE_INTEGER) are not used for them.
+        .withIdStrategy(IdStrategy.SEQUENCE_POOL, Timesheet.class, TimesheetLine.class)
+        .withIdGenerator(sequenceGenerator::nextIds)
+        // *Async() queries. See AsyncQueryConfig
+        .withAsyncExecutor(queryExecutor)
+        // statement timers and row counts on /actuator/metrics (jdbcutil.*)
+        .withMeterRegistry(metricsEnabled ? meterRegistry : null);
+    if (statementBudgetProperties.isEnabled()) {
+      // statement counts per request. See StatementBudgetFilter
+      jdbcUtil.withStatementListener(requestStatementTracker);
+    }
 
     return jdbcUtil;
   }
+
+  /**
+   * Loads the table metadata JdbcUtil needs once all beans (including flyway) are initialized and
+   * before the web server starts taking requests.
+   */
+  @Bean
+  public SmartInitializingSingleton jdbcUtilMetadataLoader(JdbcUtil jdbcUtil) {
+    return () ->
+        jdbcUtil.loadMetadata(
+            Person.class,
+            PersonCredential.class,
+            PersonProject.class,
+            Project.class,
+            Timesheet.class,
+            TimesheetLine.class);
+  }
 }
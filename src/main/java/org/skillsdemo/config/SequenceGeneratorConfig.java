@@ -1,23 +1,46 @@
 package org.skillsdemo.config;
 
+import org.skillsdemo.common.SnowflakeNodeLease;
 import org.skillsdemo.common.TwitterSnowflake;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * Configure the twittersnowflake sequence generator which can generate unique sequences
  * of type 'Long' in a distributed environment.
- * 
+ *
+ * By default each instance leases its node id from table snowflake_node_lease so instances of a
+ * cluster never share a node id. Set property snowflake.node-id (0 - 1023) to use a fixed node id
+ * instead. snowflake.lease-seconds (default 60) is how long a lease lasts without renewal.
+ *
  * See class TwitterSnowflake.java for more info
- * 
+ *
  * @author ajoseph
  *
  */
 @Configuration
 public class SequenceGeneratorConfig {
 
+  @Bean(destroyMethod = "close")
+  @DependsOn("flywayInitializer") // lease table is created by flyway
+  @ConditionalOnProperty(name = "snowflake.node-id", havingValue = "-1", matchIfMissing = true)
+  public SnowflakeNodeLease snowflakeNodeLease(
+      @Qualifier("jdbcTemplate") JdbcTemplate jdbcTemplate,
+      @Value("${snowflake.lease-seconds:60}") long leaseSeconds) {
+    return new SnowflakeNodeLease(jdbcTemplate, leaseSeconds);
+  }
+
   @Bean(name = "SequenceGenerator")
-  public TwitterSnowflake sequenceGenerator() {
-    return new TwitterSnowflake();
+  public TwitterSnowflake sequenceGenerator(
+      ObjectProvider<SnowflakeNodeLease> snowflakeNodeLease,
+      @Value("${snowflake.node-id:-1}") long nodeId) {
+    SnowflakeNodeLease lease = snowflakeNodeLease.getIfAvailable();
+    return lease != null ? new TwitterSnowflake(lease) : new TwitterSnowflake(nodeId);
   }
 }
@@ -0,0 +1,39 @@
+package org.skillsdemo.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Statement budgets of the requests. See StatementBudgetFilter.java and application.properties
+ *
+ * @author ajoseph
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "statement-budget")
+public class StatementBudgetProperties {
+  // false turns off the per request statement counts, the Server-Timing header and the checks
+  private boolean enabled = true;
+
+  // true - add the Server-Timing header to the responses. It tells anyone calling the api how
+  // much database work a request does, so it is only turned on for the 'dev' and 'test' profiles
+  private boolean serverTimingHeader = false;
+
+  // statements a request can run
+  private int maxStatements = 30;
+
+  // times a request can run the same statement. More is reported as a possible N+1
+  private int maxRepeats = 5;
+
+  // true - throw StatementBudgetExceededException instead of logging a warning. For tests
+  private boolean failOnExceeded = false;
+
+  // Map key - ant pattern of the request uri. ex: /timesheet/api/timesheetId/*/submit
+  //     value - statements the matching requests can run instead of maxStatements
+  private Map<String, Integer> endpoints = new LinkedHashMap<>();
+}
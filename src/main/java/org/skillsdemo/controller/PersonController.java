@@ -2,9 +2,11 @@ package org.skillsdemo.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.security.RolesAllowed;
 
+import org.skillsdemo.common.AppUtil;
 import org.skillsdemo.common.FixedDropdowns;
 import org.skillsdemo.common.JsonUtil;
 import org.skillsdemo.common.Page;
@@ -32,6 +34,10 @@ public class PersonController {
 
   @GetMapping("/person/personlist")
   public String showPersonListPage(Model model) {
+    // runs while the project dropdown list is loaded
+    CompletableFuture<List<ValueAndText>> reportsToDropdownList =
+        personService.getManagerDropdownListAsync();
+
     // only admins have access to this controller so editable is always true
     model.addAttribute("editable", true);
     model.addAttribute(
@@ -41,7 +47,7 @@ public class PersonController {
         "accountStatusDropdownList",
         JsonUtil.toJson(FixedDropdowns.getAccountStatusDropdownList()));
     model.addAttribute(
-        "reportsToDropdownList", JsonUtil.toJson(personService.getManagerDropdownList()));
+        "reportsToDropdownList", JsonUtil.toJson(AppUtil.join(reportsToDropdownList)));
     return "person_list";
   }
 
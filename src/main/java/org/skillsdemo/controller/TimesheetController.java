@@ -3,6 +3,7 @@ package org.skillsdemo.controller;
 import static org.skillsdemo.common.AppConstants.TURBOLINKS_REDIRECT_LOCATION;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.security.RolesAllowed;
 import javax.servlet.http.HttpServletResponse;
@@ -16,6 +17,7 @@ import org.skillsdemo.model.Timesheet;
 import org.skillsdemo.model.TimesheetPayload;
 import org.skillsdemo.model.TimesheetPeriod;
 import org.skillsdemo.model.TimesheetRow;
+import org.skillsdemo.model.ValueAndText;
 import org.skillsdemo.service.PersonService;
 import org.skillsdemo.service.TimesheetService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,6 +42,10 @@ public class TimesheetController {
 
   @GetMapping(value = "/timesheet/{timesheetId}")
   public String showTimesheetPage(@PathVariable("timesheetId") Integer timesheetId, Model model) {
+    // does not depend on the timesheet. runs while the timesheet is loaded
+    CompletableFuture<List<ValueAndText>> userProjectsDropdownList =
+        personService.getPersonProjectsDropdownListAsync(AppUtil.getLoggedInPersonId());
+
     Timesheet timesheet = timesheetService.getTimesheet(timesheetId);
 
     model.addAttribute("timesheet", timesheet);
@@ -48,9 +54,7 @@ public class TimesheetController {
 
     model.addAttribute("datesList", JsonUtil.toJson(timesheet.getDatesList()));
     model.addAttribute(
-        "userProjectsDropdownList",
-        JsonUtil.toJson(
-            personService.getPersonProjectsDropdownList(AppUtil.getLoggedInPersonId())));
+        "userProjectsDropdownList", JsonUtil.toJson(AppUtil.join(userProjectsDropdownList)));
 
     return "timesheet";
   }
@@ -1,13 +1,20 @@
 package org.skillsdemo.dao;
 
 import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import org.jdbctemplatemapper.dbutil.GraphMapper;
 import org.jdbctemplatemapper.dbutil.JdbcUtil;
 import org.jdbctemplatemapper.dbutil.SelectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 /**
@@ -24,14 +31,50 @@ public class BaseDao {
 	    return jdbcUtil.findById(id, clazz);
 	  }
 
+	  public <T> CompletableFuture<T> findByIdAsync(Object id, Class<T> clazz) {
+	    return jdbcUtil.findByIdAsync(id, clazz);
+	  }
+
 	  public void insert(Object pojo) {
 	    jdbcUtil.insert(pojo);
 	  }
 
+	  public void insertAll(List<?> pojos) {
+	    jdbcUtil.insertAll(pojos);
+	  }
+
+	  public <T> long copyIn(Class<T> clazz, Iterator<T> pojos) {
+	    return jdbcUtil.copyIn(clazz, pojos);
+	  }
+
 	  public <T> List<T> findAll(Class<T> clazz) {
 	    return jdbcUtil.findAll(clazz);
 	  }
 
+	  public <T> CompletableFuture<List<T>> findAllAsync(Class<T> clazz) {
+	    return jdbcUtil.findAllAsync(clazz);
+	  }
+
+	  public <T> CompletableFuture<T> supplyAsync(Supplier<T> query) {
+	    return jdbcUtil.supplyAsync(query);
+	  }
+
+	  public <T> T timedQuery(Class<?> clazz, String statementName, Supplier<T> query) {
+	    return jdbcUtil.timedQuery(clazz, statementName, query);
+	  }
+
+	  public <T> T timedUpdate(Class<?> clazz, String statementName, Supplier<T> update) {
+	    return jdbcUtil.timedUpdate(clazz, statementName, update);
+	  }
+
+	  public void flush() {
+	    jdbcUtil.flush();
+	  }
+
+	  public <T> Stream<T> stream(Class<T> clazz, String sql, Map<String, ?> params, int fetchSize) {
+	    return jdbcUtil.stream(clazz, sql, params, fetchSize);
+	  }
+
 	  public Integer update(Object pojo) {
 	    return jdbcUtil.update(pojo);
 	  }
@@ -40,6 +83,30 @@ public class BaseDao {
 		return jdbcUtil.update(pojo, propertyNames);
 	  }
 
+	  public Integer updateAll(List<?> pojos) {
+	    return jdbcUtil.updateAll(pojos);
+	  }
+
+	  public Integer updateAll(List<?> pojos, String... propertyNames) {
+	    return jdbcUtil.updateAll(pojos, propertyNames);
+	  }
+
+	  public Integer upsert(Object pojo, String... conflictColumns) {
+	    return jdbcUtil.upsert(pojo, conflictColumns);
+	  }
+
+	  public Integer upsertAll(List<?> pojos, String... conflictColumns) {
+	    return jdbcUtil.upsertAll(pojos, conflictColumns);
+	  }
+
+	  public Integer insertIfAbsent(Object pojo, String... conflictColumns) {
+	    return jdbcUtil.insertIfAbsent(pojo, conflictColumns);
+	  }
+
+	  public Integer insertAllIfAbsent(List<?> pojos, String... conflictColumns) {
+	    return jdbcUtil.insertAllIfAbsent(pojos, conflictColumns);
+	  }
+
 	  public Integer delete(Object pojo) {
 	    return jdbcUtil.delete(pojo);
 	  }
@@ -48,12 +115,24 @@ public class BaseDao {
 	    return jdbcUtil.deleteById(id, clazz);
 	  }
 
+	  public <T> Integer deleteByIds(Class<T> clazz, Collection<?> ids) {
+	    return jdbcUtil.deleteByIds(clazz, ids);
+	  }
+
+	  public Integer deleteAll(List<?> pojos) {
+	    return jdbcUtil.deleteAll(pojos);
+	  }
+
 
 
 	  public Integer getNextSequence(String sequenceName) {
 	    return jdbcUtil.getNextSequence(sequenceName);
 	  }
 
+	  public List<Integer> getNextSequences(String sequenceName, int count) {
+	    return jdbcUtil.getNextSequences(sequenceName, count);
+	  }
+
 	  public <T, U> void toOne(T mainObj, String relationshipPropertyName, Class<U> relationshipClazz) {
 	    jdbcUtil.toOne(mainObj, relationshipPropertyName, relationshipClazz);
 	  }
@@ -94,6 +173,14 @@ public class BaseDao {
 	      SelectMapper<U> relatedObjMapper) {
 	    return jdbcUtil.toManyMapper(rs, mainObjMapper, collectionPropertyName, relatedObjMapper);
 	  }
+
+	  public <T> List<T> graphMapper(ResultSet rs, GraphMapper<T> graphMapper) {
+	    return jdbcUtil.graphMapper(rs, graphMapper);
+	  }
+
+	  public <T> RowMapper<T> getRowMapper(Class<T> clazz) {
+	    return jdbcUtil.getRowMapper(clazz);
+	  }
 	  
 	  public <T, U> void toOneMerge( List<T> mainObjList,List<U> relatedObjList,String relationshipPropertyName,String joinPropertyName) {
 		  jdbcUtil.toOneMerge(mainObjList, relatedObjList, relationshipPropertyName, joinPropertyName);
@@ -12,7 +12,6 @@ import org.skillsdemo.model.Person;
 import org.skillsdemo.model.PersonCredential;
 import org.skillsdemo.model.PersonProject;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
@@ -57,7 +56,11 @@ public class PersonDao extends BaseDao {
     Map<String, Object> sqlParams = whereInfo.getRight();
 
     String sqlCount = "select count(distinct(p.id)) " + fromClause + whereClause;
-    int count = npJdbcTemplate.queryForObject(sqlCount, sqlParams, Integer.class);
+    int count =
+        timedQuery(
+            Person.class,
+            "fetchPaginatedPersonsCount",
+            () -> npJdbcTemplate.queryForObject(sqlCount, sqlParams, Integer.class));
 
     String orderByClause = queryBuilder.getOrderByClause();
     String offsetLimitClause = queryBuilder.getOffsetLimitClause();
@@ -71,8 +74,12 @@ public class PersonDao extends BaseDao {
             + orderByClause
             + offsetLimitClause;
 
-    RowMapper<Person> mapper = BeanPropertyRowMapper.newInstance(Person.class);
-    List<Person> persons = npJdbcTemplate.query(sql, sqlParams, mapper);
+    RowMapper<Person> mapper = getRowMapper(Person.class);
+    List<Person> persons =
+        timedQuery(
+            Person.class,
+            "fetchPaginatedPersons",
+            () -> npJdbcTemplate.query(sql, sqlParams, mapper));
 
     return new Page<Person>(count, persons);
   }
@@ -87,26 +94,27 @@ public class PersonDao extends BaseDao {
             "where pp.person_id = ?",
             "order by p.name");
 
-    RowMapper<PersonProject> mapper = BeanPropertyRowMapper.newInstance(PersonProject.class);
-    return jdbcTemplate.query(sql, mapper, personId);
-  }
-
-  public boolean existsPersonProject(Integer personId, Integer projectId) {
-    String sql = "select count(*) from person_project where person_id = ? and project_id = ?";
-    int count = jdbcTemplate.queryForObject(sql, Integer.class, personId, projectId);
-    return (count > 0) ? true : false;
+    RowMapper<PersonProject> mapper = getRowMapper(PersonProject.class);
+    return timedQuery(
+        PersonProject.class,
+        "fetchPersonProjects",
+        () -> jdbcTemplate.query(sql, mapper, personId));
   }
 
   public boolean existsUsername(String username) {
     String sql = "select count(*) from person where lower(username) = lower(?)";
-    int count = jdbcTemplate.queryForObject(sql, Integer.class, username);
+    int count =
+        timedQuery(
+            Person.class,
+            "existsUsername",
+            () -> jdbcTemplate.queryForObject(sql, Integer.class, username));
     return (count > 0) ? true : false;
   }
 
   public List<Person> getManagerList() {
     String sql = "select * from person where role = 'ROLE_MANAGER' order by first_name, last_name";
-    RowMapper<Person> mapper = BeanPropertyRowMapper.newInstance(Person.class);
-    return jdbcTemplate.query(sql, mapper);
+    RowMapper<Person> mapper = getRowMapper(Person.class);
+    return timedQuery(Person.class, "getManagerList", () -> jdbcTemplate.query(sql, mapper));
   }
 
   public List<Person> findManagerAutocomplete(String value) {
@@ -117,15 +125,19 @@ public class PersonDao extends BaseDao {
             "where role = 'ROLE_MANAGER'",
             "and concat(first_name , ' ' ,last_name) ilike ?",
             "order by first_name, last_name");
-    RowMapper<Person> mapper = BeanPropertyRowMapper.newInstance(Person.class);
-    return jdbcTemplate.query(sql, mapper, "%" + value + "%");
+    RowMapper<Person> mapper = getRowMapper(Person.class);
+    return timedQuery(
+        Person.class,
+        "findManagerAutocomplete",
+        () -> jdbcTemplate.query(sql, mapper, "%" + value + "%"));
   }
 
   public Person findByUsername(String username) {
     String sql = "select * from person where username = ?";
-    RowMapper<Person> mapper = BeanPropertyRowMapper.newInstance(Person.class);
+    RowMapper<Person> mapper = getRowMapper(Person.class);
     try {
-      return jdbcTemplate.queryForObject(sql, mapper, username);
+      return timedQuery(
+          Person.class, "findByUsername", () -> jdbcTemplate.queryForObject(sql, mapper, username));
     } catch (EmptyResultDataAccessException e) {
       return null;
     }
@@ -133,9 +145,13 @@ public class PersonDao extends BaseDao {
 
   public String getPassword(Integer personId) {
     String sql = "select * from person_credential where person_id = ?";
-    RowMapper<PersonCredential> mapper = BeanPropertyRowMapper.newInstance(PersonCredential.class);
+    RowMapper<PersonCredential> mapper = getRowMapper(PersonCredential.class);
     try {
-      PersonCredential credential = jdbcTemplate.queryForObject(sql, mapper, personId);
+      PersonCredential credential =
+          timedQuery(
+              PersonCredential.class,
+              "getPassword",
+              () -> jdbcTemplate.queryForObject(sql, mapper, personId));
       return credential.getPassword();
     } catch (EmptyResultDataAccessException e) {
       return null;
@@ -3,7 +3,6 @@ package org.skillsdemo.dao;
 import java.util.List;
 
 import org.skillsdemo.model.Project;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
@@ -12,7 +11,7 @@ public class ProjectDao extends BaseDao {
 
   public List<Project> findAllOrderByName() {
     String sql = "select * from project order by name";
-    RowMapper<Project> mapper = BeanPropertyRowMapper.newInstance(Project.class);
-    return jdbcTemplate.query(sql, mapper);
+    RowMapper<Project> mapper = getRowMapper(Project.class);
+    return timedQuery(Project.class, "findAllOrderByName", () -> jdbcTemplate.query(sql, mapper));
   }
 }
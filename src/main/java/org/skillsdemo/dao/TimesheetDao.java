@@ -4,18 +4,15 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.jdbctemplatemapper.dbutil.GraphMapper;
 import org.jdbctemplatemapper.dbutil.SelectMapper;
 import org.skillsdemo.model.TimeEntry;
 import org.skillsdemo.model.Timesheet;
 import org.skillsdemo.model.TimesheetLine;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -33,8 +30,9 @@ public class TimesheetDao extends BaseDao {
             "where t.person_id = ? ",
             "group by t.id, t.start_date, t.end_date, t.status, p.last_name, p.first_name",
             "order by t.start_date desc");
-    RowMapper<Timesheet> mapper = BeanPropertyRowMapper.newInstance(Timesheet.class);
-    return jdbcTemplate.query(sql, mapper, personId);
+    RowMapper<Timesheet> mapper = getRowMapper(Timesheet.class);
+    return timedQuery(
+        Timesheet.class, "getMyTimesheets", () -> jdbcTemplate.query(sql, mapper, personId));
   }
 
   public List<Timesheet> getEmployeeTimesheets(Integer reportsToId) {
@@ -50,95 +48,123 @@ public class TimesheetDao extends BaseDao {
             "and t.status != 'Draft' ",
             "group by t.id, t.start_date, t.end_date, t.status, p.last_name, p.first_name",
             "order by t.start_date desc");
-    RowMapper<Timesheet> mapper = BeanPropertyRowMapper.newInstance(Timesheet.class);
-    return jdbcTemplate.query(sql, mapper, reportsToId);
+    RowMapper<Timesheet> mapper = getRowMapper(Timesheet.class);
+    return timedQuery(
+        Timesheet.class,
+        "getEmployeeTimesheets",
+        () -> jdbcTemplate.query(sql, mapper, reportsToId));
   }
 
+  // fetches the timesheet, its TimesheetLines and their TimeEntries with a single query
   public Timesheet fetchFullTimesheet(Integer timesheetId) {
-    Timesheet timesheet = fetchTimesheetAndRelatedLines(timesheetId);
-    if (timesheet == null) {
-      return null;
-    }
-    List<TimesheetLine> timesheetLines = timesheet.getTimesheetLines();
-    if (CollectionUtils.isNotEmpty(timesheetLines)) {
-      // get the list of timesheetLineIds of timesheet
-      List<Integer> timesheetLineIds =
-          timesheetLines.stream().map(TimesheetLine::getId).collect(Collectors.toList());
-      List<TimeEntry> timeEntries = fetchEntriesByLineIds(timesheetLineIds);
-      if (CollectionUtils.isNotEmpty(timeEntries)) {
-        // Map the timesheetLineIds to their corresponding timesheet entries
-        // map with key: timesheetLineId and value: List<TimesheetEntry>
-        Map<Integer, List<TimeEntry>> timesheetLineIdEntries =
-            timeEntries.stream().collect(Collectors.groupingBy(TimeEntry::getTimesheetLineId));
-        // assign the tasks to the projects
-        timesheetLines.forEach(l -> l.setTimeEntries(timesheetLineIdEntries.get(l.getId())));
-      }
-    }
-    return timesheet;
-  }
-
-  // fetches the timesheet and its TimesheetLines. Does NOT fetch the time entries
-  private Timesheet fetchTimesheetAndRelatedLines(Integer timesheetId) {
     String sql =
         String.join(
             " ",
             "select t.*,p.last_name, p.first_name,",
-            "tl.id timesheetline_id, tl.timesheet_id timesheetline_timesheet_id, tl.project_id timesheetline_project_id, proj.name timesheetline_project_name",
+            "tl.id timesheetline_id, tl.timesheet_id timesheetline_timesheet_id, tl.project_id timesheetline_project_id, proj.name timesheetline_project_name,",
+            "te.timesheet_line_id timeentry_timesheet_line_id, te.entry_date timeentry_entry_date, te.entry_hours timeentry_entry_hours",
             "from timesheet t",
             "left join timesheet_line tl on t.id = tl.timesheet_id",
             "join person p on t.person_id = p.id",
             "left join project proj on tl.project_id = proj.id",
+            "left join time_entry te on tl.id = te.timesheet_line_id",
             "where t.id = ?",
-            "order by t.id, tl.id");
-    
-    List<Timesheet> timesheetList = jdbcTemplate.query(
-          sql,
-          new Object[] {timesheetId},
-          new int[] {java.sql.Types.INTEGER},
-          rs -> { return toManyMapper(rs, 
-        		                      new SelectMapper<Timesheet>(Timesheet.class), 
-        		                      "timesheetLines",
-        		                      new SelectMapper<TimesheetLine>(TimesheetLine.class, "timesheetline_"));}
-          );
+            "order by t.id, tl.id, te.entry_date");
+
+    GraphMapper<Timesheet> graphMapper =
+        new GraphMapper<>(new SelectMapper<Timesheet>(Timesheet.class))
+            .toMany(
+                "timesheetLines",
+                new GraphMapper<>(new SelectMapper<TimesheetLine>(TimesheetLine.class, "timesheetline_"))
+                    .toMany("timeEntries", new SelectMapper<TimeEntry>(TimeEntry.class, "timeentry_")));
+
+    List<Timesheet> timesheetList =
+        timedQuery(
+            Timesheet.class,
+            "fetchFullTimesheet",
+            () ->
+                jdbcTemplate.query(
+                    sql,
+                    new Object[] {timesheetId},
+                    new int[] {java.sql.Types.INTEGER},
+                    rs -> {
+                      return graphMapper(rs, graphMapper);
+                    }));
 
     return CollectionUtils.isNotEmpty(timesheetList) ? timesheetList.get(0) : null;
   }
 
   public boolean timesheetExists(Integer personId, LocalDate timesheetStartDate) {
     String sql = "select * from timesheet  where person_id = ? and start_date = ?";
-    RowMapper<Timesheet> mapper = BeanPropertyRowMapper.newInstance(Timesheet.class);
+    RowMapper<Timesheet> mapper = getRowMapper(Timesheet.class);
     List<Timesheet> list =
-        jdbcTemplate.query(sql, mapper, personId, java.sql.Date.valueOf(timesheetStartDate));
+        timedQuery(
+            Timesheet.class,
+            "timesheetExists",
+            () ->
+                jdbcTemplate.query(
+                    sql, mapper, personId, java.sql.Date.valueOf(timesheetStartDate)));
     return CollectionUtils.isNotEmpty(list);
   }
 
   public Integer updateTimesheetLine(TimesheetLine timesheetLine) {
     String sql = "update timesheet_line set project_id = ? where id = ? and timesheet_id = ?";
-    return jdbcTemplate.update(
-        sql, timesheetLine.getProjectId(), timesheetLine.getId(), timesheetLine.getTimesheetId());
+    return timedUpdate(
+        TimesheetLine.class,
+        "updateTimesheetLine",
+        () ->
+            jdbcTemplate.update(
+                sql,
+                timesheetLine.getProjectId(),
+                timesheetLine.getId(),
+                timesheetLine.getTimesheetId()));
   }
 
   public Integer deleteTimesheetLine(Integer timesheetId, Integer timesheetLineId) {
     String sql = "delete from timesheet_line where timesheet_id = ? and id = ?";
-    return jdbcTemplate.update(sql, timesheetId, timesheetLineId);
+    return timedUpdate(
+        TimesheetLine.class,
+        "deleteTimesheetLine",
+        () -> jdbcTemplate.update(sql, timesheetId, timesheetLineId));
   }
 
   public void deleteTimeEntriesByLineId(Integer timesheetLineId) {
     String sql = "delete from time_entry where timesheet_line_id = ?";
-    jdbcTemplate.update(sql, timesheetLineId);
+    timedUpdate(
+        TimeEntry.class,
+        "deleteTimeEntriesByLineId",
+        () -> jdbcTemplate.update(sql, timesheetLineId));
   }
 
-  public List<TimeEntry> fetchEntriesByLineIds(List<Integer> timesheetLineIds) {
-    MapSqlParameterSource params = new MapSqlParameterSource("timesheetLineIds", timesheetLineIds);
-    String sql =
-        String.join(
-            " ",
-            "select *",
-            "from time_entry",
-            "where timesheet_line_id in (:timesheetLineIds)",
-            "order by timesheet_line_id, entry_date");
-    RowMapper<TimeEntry> mapper = BeanPropertyRowMapper.newInstance(TimeEntry.class);
-    return npJdbcTemplate.query(sql, params, mapper);
+  // Deletes the lines of the timesheet with one statement. The ids are sent as an array parameter
+  public Integer deleteTimesheetLines(Integer timesheetId, List<Integer> timesheetLineIds) {
+    String sql = "delete from timesheet_line where timesheet_id = ? and id = any(?)";
+    return timedUpdate(
+        TimesheetLine.class,
+        "deleteTimesheetLines",
+        () ->
+            jdbcTemplate.update(
+                sql,
+                ps -> {
+                  ps.setInt(1, timesheetId);
+                  ps.setArray(
+                      2, ps.getConnection().createArrayOf("integer", timesheetLineIds.toArray()));
+                }));
+  }
+
+  // Deletes the time entries of the lines with one statement
+  public void deleteTimeEntriesByLineIds(List<Integer> timesheetLineIds) {
+    String sql = "delete from time_entry where timesheet_line_id = any(?)";
+    timedUpdate(
+        TimeEntry.class,
+        "deleteTimeEntriesByLineIds",
+        () ->
+            jdbcTemplate.update(
+                sql,
+                ps ->
+                    ps.setArray(
+                        1,
+                        ps.getConnection().createArrayOf("integer", timesheetLineIds.toArray()))));
   }
 
   // batch inserts for performance reasons
@@ -151,17 +177,22 @@ public class TimesheetDao extends BaseDao {
             "values(?,?,?)");
 
     int[][] insertCounts =
-        jdbcTemplate.batchUpdate(
-            insertSql,
-            entries,
-            batchSize,
-            new ParameterizedPreparedStatementSetter<TimeEntry>() {
-              public void setValues(PreparedStatement ps, TimeEntry entry) throws SQLException {
-                ps.setInt(1, entry.getTimesheetLineId());
-                ps.setDate(2, java.sql.Date.valueOf(entry.getEntryDate()));
-                ps.setObject(3, entry.getEntryHours(), java.sql.Types.DOUBLE);
-              }
-            });
+        timedUpdate(
+            TimeEntry.class,
+            "batchInsertTimeEntries",
+            () ->
+                jdbcTemplate.batchUpdate(
+                    insertSql,
+                    entries,
+                    batchSize,
+                    new ParameterizedPreparedStatementSetter<TimeEntry>() {
+                      public void setValues(PreparedStatement ps, TimeEntry entry)
+                          throws SQLException {
+                        ps.setInt(1, entry.getTimesheetLineId());
+                        ps.setDate(2, java.sql.Date.valueOf(entry.getEntryDate()));
+                        ps.setObject(3, entry.getEntryHours(), java.sql.Types.DOUBLE);
+                      }
+                    }));
     return insertCounts;
   }
 
@@ -176,17 +207,22 @@ public class TimesheetDao extends BaseDao {
             "and entry_date = ?");
 
     int[][] updateCounts =
-        jdbcTemplate.batchUpdate(
-            updateSql,
-            entries,
-            batchSize,
-            new ParameterizedPreparedStatementSetter<TimeEntry>() {
-              public void setValues(PreparedStatement ps, TimeEntry entry) throws SQLException {
-                ps.setObject(1, entry.getEntryHours(), java.sql.Types.DOUBLE);
-                ps.setInt(2, entry.getTimesheetLineId());
-                ps.setDate(3, java.sql.Date.valueOf(entry.getEntryDate()));
-              }
-            });
+        timedUpdate(
+            TimeEntry.class,
+            "batchUpdateTimeEntries",
+            () ->
+                jdbcTemplate.batchUpdate(
+                    updateSql,
+                    entries,
+                    batchSize,
+                    new ParameterizedPreparedStatementSetter<TimeEntry>() {
+                      public void setValues(PreparedStatement ps, TimeEntry entry)
+                          throws SQLException {
+                        ps.setObject(1, entry.getEntryHours(), java.sql.Types.DOUBLE);
+                        ps.setInt(2, entry.getTimesheetLineId());
+                        ps.setDate(3, java.sql.Date.valueOf(entry.getEntryDate()));
+                      }
+                    }));
 
     return updateCounts;
   }
@@ -0,0 +1,17 @@
+package org.skillsdemo.exception;
+
+/**
+ * Thrown by StatementBudgetFilter when a request runs more statements than its budget or repeats a
+ * statement too often, and statement-budget.fail-on-exceeded is true (tests). Otherwise the filter
+ * only logs a warning.
+ *
+ * @author ajoseph
+ */
+public class StatementBudgetExceededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public StatementBudgetExceededException(String message) {
+    super(message);
+  }
+}
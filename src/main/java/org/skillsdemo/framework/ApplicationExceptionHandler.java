@@ -42,8 +42,10 @@ public class ApplicationExceptionHandler extends ResponseEntityExceptionHandler
   // Reqex to get value which caused a database unique key violation. Spring throws a
   // DuplicateKeyViolation
   // Format of message is like below:
-  // .. Duplicate entry 'theValueWhichCausedTheDuplicateKeyException' for key ..
-  public static Pattern duplicateValueRegex = Pattern.compile(".*Duplicate entry '(.*?)'.*");
+  // .. Duplicate entry 'theValueWhichCausedTheDuplicateKeyException' for key .. (MySQL)
+  // .. Detail: Key (name)=(theValueWhichCausedTheDuplicateKeyException) already exists. (Postgres)
+  public static Pattern duplicateValueRegex =
+      Pattern.compile("Duplicate entry '(.*?)'|Key \\(.*?\\)=\\((.*?)\\) already exists");
 
   /**
    * This handler handles the @Valid annotation errors and converts the errors into a json response
@@ -93,8 +95,8 @@ public class ApplicationExceptionHandler extends ResponseEntityExceptionHandler
     String errorMsg = "Save failed!. Duplicate record ";
     if (e.getMessage() != null) {
       Matcher m = duplicateValueRegex.matcher(e.getMessage());
-      if (m.matches()) {
-        errorMsg += m.group(1);
+      if (m.find()) {
+        errorMsg += m.group(1) != null ? m.group(1) : m.group(2);
       }
     }
     apiError.addError("", errorMsg);
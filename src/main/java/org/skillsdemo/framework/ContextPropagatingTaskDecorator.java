@@ -0,0 +1,45 @@
+package org.skillsdemo.framework;
+
+import java.util.Map;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Runs tasks with the spring security context and the MDC (correlationId etc) of the thread which
+ * submitted them, so code on executor threads can use AppUtil.getLoggedInPerson() and its log
+ * entries can be traced to the request. The executor thread's own context is restored afterwards
+ * since the task may run on the submitting thread itself (CallerRunsPolicy).
+ *
+ * @author ajoseph
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    return () -> {
+      Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+      SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+      setMdc(mdc);
+      SecurityContextHolder.setContext(securityContext);
+      try {
+        runnable.run();
+      } finally {
+        setMdc(previousMdc);
+        SecurityContextHolder.setContext(previousSecurityContext);
+      }
+    };
+  }
+
+  private void setMdc(Map<String, String> mdc) {
+    if (mdc == null) {
+      MDC.clear();
+    } else {
+      MDC.setContextMap(mdc);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package org.skillsdemo.framework;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jdbctemplatemapper.dbutil.IStatementListener;
+import org.skillsdemo.common.AppConstants;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the statements each request runs. Registered with JdbcUtil as a statement listener (see
+ * JdbcUtilConfig.java) and used by StatementBudgetFilter.
+ *
+ * <p>Requests are keyed by the correlationId in the MDC, so statements run on the query executor
+ * threads (*Async() methods, see ContextPropagatingTaskDecorator) count for the request which
+ * started them. Statements run outside of a tracked request are ignored.
+ *
+ * @author ajoseph
+ */
+@Component
+public class RequestStatementTracker implements IStatementListener {
+
+  // Map key - correlationId
+  //     value - the statements of the request
+  private final Map<String, RequestStatements> requests = new ConcurrentHashMap<>();
+
+  /**
+   * Starts tracking the statements of a request.
+   *
+   * @param correlationId - the correlationId of the request
+   * @return the statements of the request. null if another request with the same correlationId
+   *     (sent by the caller in the header) is being tracked
+   */
+  public RequestStatements begin(String correlationId) {
+    RequestStatements statements = new RequestStatements();
+    return requests.putIfAbsent(correlationId, statements) == null ? statements : null;
+  }
+
+  /**
+   * Stops tracking the statements of a request.
+   *
+   * @param correlationId - the correlationId of the request
+   * @param statements - what begin() returned
+   */
+  public void end(String correlationId, RequestStatements statements) {
+    requests.remove(correlationId, statements);
+  }
+
+  @Override
+  public void statementExecuted(
+      Class<?> clazz,
+      String operation,
+      String statement,
+      boolean named,
+      boolean update,
+      int rows,
+      long elapsedNanos) {
+    if (requests.isEmpty()) {
+      return;
+    }
+    String correlationId = MDC.get(AppConstants.CORRELATION_ID_HEADER);
+    RequestStatements statements = correlationId != null ? requests.get(correlationId) : null;
+    if (statements != null) {
+      String entity = clazz != null ? clazz.getSimpleName() : "-";
+      statements.add(entity + " " + operation + " [" + statement + "]", elapsedNanos);
+    }
+  }
+
+  /** The statements a request ran. Thread safe. */
+  public static class RequestStatements {
+    private int count;
+    private long totalNanos;
+    // Map key - entity, operation and the sql (or name) of the statement
+    //     value - the number of times the request ran it
+    private final Map<String, Integer> repeats = new LinkedHashMap<>();
+
+    synchronized void add(String statement, long elapsedNanos) {
+      count++;
+      totalNanos += elapsedNanos;
+      repeats.merge(statement, 1, Integer::sum);
+    }
+
+    public synchronized int getCount() {
+      return count;
+    }
+
+    public synchronized long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /** @return copy of the statements with the number of times each ran */
+    public synchronized Map<String, Integer> getRepeats() {
+      return new LinkedHashMap<>(repeats);
+    }
+  }
+}
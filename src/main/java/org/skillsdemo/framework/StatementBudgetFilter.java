@@ -0,0 +1,199 @@
+package org.skillsdemo.framework;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.skillsdemo.common.AppConstants;
+import org.skillsdemo.config.StatementBudgetProperties;
+import org.skillsdemo.exception.StatementBudgetExceededException;
+import org.skillsdemo.framework.RequestStatementTracker.RequestStatements;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the statements each request runs (see RequestStatementTracker.java) and
+ *
+ * <p>1) with statement-budget.server-timing-header=true (dev and test profiles) adds a Server-Timing
+ * header with the database time and statement count. Browser dev tools show it with the request
+ * timings. Ex: Server-Timing: db;dur=12.4;desc="9 statements"
+ *
+ * <p>2) logs a warning when the request runs more statements than its budget or runs the same
+ * statement more than statement-budget.max-repeats times, which usually is a query in a loop (N+1).
+ * With statement-budget.fail-on-exceeded=true (tests) throws StatementBudgetExceededException
+ * instead.
+ *
+ * <p>Runs after CorrelationIdFilter since requests are tracked by correlationId. Requests without
+ * one (static resources etc) are not tracked. See application.properties for the budgets.
+ *
+ * @author ajoseph
+ */
+@Slf4j
+@Component
+@Order(2)
+public class StatementBudgetFilter implements Filter {
+  private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+  @Autowired private StatementBudgetProperties properties;
+  @Autowired private RequestStatementTracker tracker;
+
+  @Override
+  public void doFilter(
+      ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+      throws IOException, ServletException {
+    String correlationId = MDC.get(AppConstants.CORRELATION_ID_HEADER);
+    RequestStatements statements =
+        properties.isEnabled() && correlationId != null ? tracker.begin(correlationId) : null;
+    if (statements == null) {
+      filterChain.doFilter(servletRequest, servletResponse);
+      return;
+    }
+
+    try {
+      if (properties.isServerTimingHeader()) {
+        ServerTimingResponse response =
+            new ServerTimingResponse((HttpServletResponse) servletResponse, statements);
+        filterChain.doFilter(servletRequest, response);
+        // responses without a body
+        response.addServerTiming();
+      } else {
+        filterChain.doFilter(servletRequest, servletResponse);
+      }
+    } finally {
+      tracker.end(correlationId, statements);
+    }
+    checkBudget((HttpServletRequest) servletRequest, statements);
+  }
+
+  private void checkBudget(HttpServletRequest request, RequestStatements statements) {
+    String path = request.getRequestURI();
+    int budget = getBudget(path);
+    int count = statements.getCount();
+    if (log.isDebugEnabled()) {
+      log.debug("{} statements {} ms", count, formatMillis(statements.getTotalNanos()));
+    }
+
+    List<String> problems = new ArrayList<>();
+    if (count > budget) {
+      problems.add(count + " statements, budget is " + budget);
+    }
+    for (Map.Entry<String, Integer> entry : statements.getRepeats().entrySet()) {
+      if (entry.getValue() > properties.getMaxRepeats()) {
+        problems.add("possible N+1, ran " + entry.getValue() + " times: " + entry.getKey());
+      }
+    }
+    if (problems.isEmpty()) {
+      return;
+    }
+    String message =
+        "Statement budget exceeded by "
+            + request.getMethod()
+            + " "
+            + path
+            + ": "
+            + String.join("; ", problems);
+    if (properties.isFailOnExceeded()) {
+      throw new StatementBudgetExceededException(message);
+    }
+    log.warn(message);
+  }
+
+  // the budget of the first matching endpoint pattern or the default
+  private int getBudget(String path) {
+    for (Map.Entry<String, Integer> entry : properties.getEndpoints().entrySet()) {
+      if (pathMatcher.match(entry.getKey(), path)) {
+        return entry.getValue();
+      }
+    }
+    return properties.getMaxStatements();
+  }
+
+  private static String formatMillis(long nanos) {
+    return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+  }
+
+  /**
+   * Adds the Server-Timing header just before the response gets committed, which is after the
+   * controller ran and its statements are counted. Headers can not be added once the body is being
+   * written.
+   */
+  private static class ServerTimingResponse extends HttpServletResponseWrapper {
+    private final RequestStatements statements;
+    private boolean serverTimingAdded;
+
+    ServerTimingResponse(HttpServletResponse response, RequestStatements statements) {
+      super(response);
+      this.statements = statements;
+    }
+
+    void addServerTiming() {
+      if (serverTimingAdded || isCommitted()) {
+        return;
+      }
+      serverTimingAdded = true;
+      addHeader(
+          SERVER_TIMING_HEADER,
+          "db;dur="
+              + formatMillis(statements.getTotalNanos())
+              + ";desc=\""
+              + statements.getCount()
+              + " statements\"");
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addServerTiming();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addServerTiming();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addServerTiming();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addServerTiming();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addServerTiming();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+      addServerTiming();
+      super.sendRedirect(location);
+    }
+  }
+}
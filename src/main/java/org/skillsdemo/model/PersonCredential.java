@@ -1,9 +1,12 @@
 package org.skillsdemo.model;
 
+import org.jdbctemplatemapper.dbutil.GenerateMapper;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
+@GenerateMapper
 @NoArgsConstructor
 public class PersonCredential {
   private Integer id;
@@ -2,10 +2,13 @@ package org.skillsdemo.model;
 
 import javax.validation.constraints.NotNull;
 
+import org.jdbctemplatemapper.dbutil.GenerateMapper;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
+@GenerateMapper
 @NoArgsConstructor
 public class PersonProject {
   private Integer id;
@@ -2,10 +2,13 @@ package org.skillsdemo.model;
 
 import java.time.LocalDate;
 
+import org.jdbctemplatemapper.dbutil.GenerateMapper;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
 @Data
+@GenerateMapper
 @AllArgsConstructor
 public class TimeEntry {
   private Integer timesheetLineId;
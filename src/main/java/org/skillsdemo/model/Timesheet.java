@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.jdbctemplatemapper.dbutil.GenerateMapper;
 import org.skillsdemo.common.AppUtil;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
@@ -20,6 +21,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
+@GenerateMapper
 @NoArgsConstructor
 public class Timesheet {
   private Integer id;
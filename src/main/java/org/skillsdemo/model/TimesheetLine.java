@@ -3,10 +3,13 @@ package org.skillsdemo.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.jdbctemplatemapper.dbutil.GenerateMapper;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
+@GenerateMapper
 @NoArgsConstructor
 public class TimesheetLine {
   private Integer id;
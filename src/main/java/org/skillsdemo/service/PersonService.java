@@ -1,8 +1,11 @@
 package org.skillsdemo.service;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.skillsdemo.common.AppUtil;
 import org.skillsdemo.common.Page;
@@ -41,6 +44,11 @@ public class PersonService {
     return dropdownList;
   }
 
+  public CompletableFuture<List<ValueAndText>> getPersonProjectsDropdownListAsync(
+      Integer personId) {
+    return personDao.supplyAsync(() -> getPersonProjectsDropdownList(personId));
+  }
+
   public List<ValueAndText> getManagerDropdownList() {
     List<Person> list = personDao.getManagerList();
     List<ValueAndText> dropdownList = new ArrayList<>();
@@ -51,6 +59,10 @@ public class PersonService {
     return dropdownList;
   }
 
+  public CompletableFuture<List<ValueAndText>> getManagerDropdownListAsync() {
+    return personDao.supplyAsync(this::getManagerDropdownList);
+  }
+
   public List<ValueAndText> findManageAutocomplete(String autocompleteValue) {
     List<Person> list = personDao.findManagerAutocomplete(autocompleteValue);
     List<ValueAndText> responseList = new ArrayList<>();
@@ -65,15 +77,20 @@ public class PersonService {
     // if validation fails an exception is thrown and framework code will handle message to user.
     validatorUtil.validateList(gridSubmitData.getNewAndUpdatedRows());
 
+    Set<String> newUsernames = new HashSet<>();
     for (Person person : gridSubmitData.getCreated()) {
-      if (personDao.existsUsername(person.getUsername())) {
+      if (!newUsernames.add(person.getUsername().toLowerCase())
+          || personDao.existsUsername(person.getUsername())) {
         throw new CustomValidationException(
             "Save failed. Username " + person.getUsername() + " already exists.");
       }
-      personDao.insert(person);
-      PersonCredential cred = new PersonCredential(person.getId(), "pass");
-      personDao.insert(cred);
     }
+    personDao.insertAll(gridSubmitData.getCreated());
+    List<PersonCredential> creds = new ArrayList<>();
+    for (Person person : gridSubmitData.getCreated()) {
+      creds.add(new PersonCredential(person.getId(), "pass"));
+    }
+    personDao.insertAll(creds);
     
     for (Person person : gridSubmitData.getUpdatedAndDeletedRows()) {
 	  if(AppUtil.getLoggedInPersonId().equals(person.getId())) {
@@ -82,7 +99,10 @@ public class PersonService {
 	  }
     }
 
-    gridSubmitData.getUpdated().stream().forEach(p -> personDao.update(p));
+    personDao.updateAll(gridSubmitData.getUpdated());
+    // send the queued updates before the deletes so a duplicate username of an update is not
+    // reported as a failed delete
+    personDao.flush();
 
     for (Person person : gridSubmitData.getDestroyed()) {
       try {
@@ -104,15 +124,20 @@ public class PersonService {
       person.setPersonId(personId);
     }
 
+    Set<Integer> newProjectIds = new HashSet<>();
     for (PersonProject pp : gridSubmitData.getCreated()) {
-      if (personDao.existsPersonProject(pp.getPersonId(), pp.getProjectId())) {
+      if (!newProjectIds.add(pp.getProjectId())) {
         throw new CustomValidationException("Save failed. Duplicate Project assigned");
       }
     }
-    gridSubmitData.getCreated().stream().forEach(p -> personDao.insert(p));
+    // a project which is already assigned does not get inserted. The transaction is rolled back.
+    List<PersonProject> created = gridSubmitData.getCreated();
+    if (personDao.insertAllIfAbsent(created, "personId", "projectId") != created.size()) {
+      throw new CustomValidationException("Save failed. Duplicate Project assigned");
+    }
 
-    gridSubmitData.getUpdated().stream().forEach(p -> personDao.update(p));
-    gridSubmitData.getDestroyed().stream().forEach(p -> personDao.delete(p));
+    personDao.updateAll(gridSubmitData.getUpdated());
+    personDao.deleteAll(gridSubmitData.getDestroyed());
 
     return gridSubmitData;
   }
@@ -38,8 +38,11 @@ public class ProjectService {
     // if validation fails an exception is thrown and framework code will handle it.
     validatorUtil.validateList(gridSubmitData.getNewAndUpdatedRows());
 
-    gridSubmitData.getCreated().stream().forEach(p -> projectDao.insert(p));
-    gridSubmitData.getUpdated().stream().forEach(p -> projectDao.update(p));
+    projectDao.insertAll(gridSubmitData.getCreated());
+    projectDao.updateAll(gridSubmitData.getUpdated());
+    // send the queued updates before the deletes so a duplicate name of an update is not reported
+    // as a failed delete
+    projectDao.flush();
 
     for (Project project : gridSubmitData.getDestroyed()) {
       try {
@@ -75,7 +75,14 @@ public class TimesheetService {
       }
 
       timesheet.setUserComments(payload.getUserComments());
-      timesheetDao.insert(timesheet);
+      // there may already be a timesheet for the week (saved from another temp timesheet). The
+      // existing one is left as it is and the transaction is rolled back.
+      if (timesheetDao.insertIfAbsent(timesheet, "personId", "startDate") != 1) {
+        throw new CustomValidationException(
+            "Timesheet for week starting "
+                + AppUtil.getFormattedDate(timesheet.getStartDate())
+                + " already exists.");
+      }
       cacheHelper.evictTempTimesheetFromCache(timesheetId + "-" + personId);
     }
 
@@ -139,6 +146,8 @@ public class TimesheetService {
   public Integer createTempTimesheet(LocalDate periodDate) {
     Integer personId = AppUtil.getLoggedInPersonId();
     LocalDate startDate = Timesheet.getStartDateForPeriod(periodDate);
+    // tell the user before they fill in the timesheet. Saving still inserts it only if the week
+    // does not have one since another request can save one for the week in the meantime.
     if (timesheetDao.timesheetExists(personId, startDate)) {
       throw new CustomValidationException(
           "Timesheet for week starting "
@@ -155,17 +164,22 @@ public class TimesheetService {
   }
 
   private void processNewRows(List<TimesheetRow> newRows, Timesheet timesheet) {
+    if (CollectionUtils.isEmpty(newRows)) {
+      return;
+    }
     List<TimesheetLine> timesheetLines = new ArrayList<>();
-    List<TimeEntry> timeEntries = new ArrayList<>();
     for (TimesheetRow row : newRows) {
-      Integer timesheetLineId = timesheetDao.getNextSequence("timesheet_line_id_seq");
-
-      TimesheetLine timesheetLine =
-          new TimesheetLine(timesheetLineId, timesheet.getId(), row.getProjectId());
-      timesheetLines.add(timesheetLine);
+      timesheetLines.add(new TimesheetLine(null, timesheet.getId(), row.getProjectId()));
+    }
+    // ids are assigned from the timesheet_line_id_seq pool. See JdbcUtilConfig
+    timesheetDao.insertAll(timesheetLines);
 
-      LocalDate startDt = timesheet.getStartDate();
-      Integer dayCount = getTimesheetDayCount();
+    List<TimeEntry> timeEntries = new ArrayList<>();
+    LocalDate startDt = timesheet.getStartDate();
+    Integer dayCount = getTimesheetDayCount();
+    for (int idx = 0; idx < newRows.size(); idx++) {
+      TimesheetRow row = newRows.get(idx);
+      Integer timesheetLineId = timesheetLines.get(idx).getId();
       for (int i = 0; i < dayCount; i++) {
         timeEntries.add(
             new TimeEntry(timesheetLineId, startDt.plusDays(i), row.getHoursDay("hoursDay" + i)));
@@ -173,14 +187,8 @@ public class TimesheetService {
       // need this so kendo knows the line was successfully inserted.
       row.setId(timesheetLineId);
     }
-
-    if (CollectionUtils.isNotEmpty(timesheetLines)) {
-      for (TimesheetLine timesheetLine : timesheetLines) {
-        timesheetDao.insert(timesheetLine);
-      }
-      if (CollectionUtils.isNotEmpty(timeEntries)) {
-        timesheetDao.batchInsertTimeEntries(timeEntries, 100);
-      }
+    if (CollectionUtils.isNotEmpty(timeEntries)) {
+      timesheetDao.batchInsertTimeEntries(timeEntries, 100);
     }
   }
 
@@ -239,12 +247,18 @@ public class TimesheetService {
   }
 
   private void processDeletedRows(List<TimesheetRow> deletedRows, Timesheet timesheet) {
-    for (TimesheetRow row : deletedRows) {
-      timesheetDao.deleteTimeEntriesByLineId(row.getId());
-      if (timesheetDao.deleteTimesheetLine(timesheet.getId(), row.getId()) != 1) {
+    if (CollectionUtils.isNotEmpty(deletedRows)) {
+      List<Integer> timesheetLineIds =
+          deletedRows.stream().map(TimesheetRow::getId).distinct().collect(Collectors.toList());
+      timesheetDao.deleteTimeEntriesByLineIds(timesheetLineIds);
+      if (timesheetDao.deleteTimesheetLines(timesheet.getId(), timesheetLineIds)
+          != timesheetLineIds.size()) {
         // should only happen if someone is user is hacking system with postman etc
         throw new RuntimeException(
-            "delete failed for timesheeLine:" + row.getId() + " timesheetId:" + timesheet.getId());
+            "delete failed for timesheeLines:"
+                + timesheetLineIds
+                + " timesheetId:"
+                + timesheet.getId());
       }
     }
   }
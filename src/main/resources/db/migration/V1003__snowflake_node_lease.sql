@@ -0,0 +1,10 @@
+-- node ids (0 - 1023) claimed by running application instances for TwitterSnowflake.
+-- A row whose expires_at has passed is free to be claimed again. See SnowflakeNodeLease.java
+CREATE TABLE public.snowflake_node_lease (
+	node_id int4 NOT NULL,
+	"owner" varchar(100) NOT NULL,
+	claimed_on timestamptz NOT NULL,
+	expires_at timestamptz NOT NULL,
+	CONSTRAINT snowflake_node_lease_pkey PRIMARY KEY (node_id),
+	CONSTRAINT snowflake_node_lease_node_id_check CHECK (node_id >= 0 AND node_id <= 1023)
+);
@@ -0,0 +1,115 @@
+package org.jdbctemplatemapper.dbutil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.SkillsdemoApplication;
+import org.skillsdemo.model.Timesheet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * copyIn() csv edge cases, loaded into the timesheet table and read back. Each test is rolled back.
+ *
+ * @author ajoseph
+ */
+@SpringBootTest(classes = SkillsdemoApplication.class)
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser
+public class JdbcUtilCopyInTest {
+  // start dates of the loaded timesheets. The seed data does not have timesheets before it
+  private static final LocalDate START_DATE = LocalDate.of(1990, 1, 1);
+
+  private static final List<String> COMMENTS =
+      Arrays.asList(
+          "plain",
+          "with, comma",
+          "with \"quotes\"",
+          "\"",
+          "first line\nsecond line",
+          "windows\r\nline",
+          "",
+          null,
+          " leading and trailing ",
+          "\\.",
+          "back\\slash",
+          "ünïcödé €",
+          "NULL");
+
+  @Autowired private JdbcUtil jdbcUtil;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void copyIn_csvValuesAreLoadedAsIs() {
+    List<Timesheet> timesheets = new ArrayList<>();
+    for (int i = 0; i < COMMENTS.size(); i++) {
+      Timesheet timesheet = createTimesheet(i);
+      timesheet.setUserComments(COMMENTS.get(i));
+      // seconds (and nanos) of 0 are left out by LocalDateTime.toString()
+      timesheet.setSubmittedOn(
+          i % 2 == 0
+              ? LocalDateTime.of(2020, 1, 1, 10, 15)
+              : LocalDateTime.of(2020, 1, 1, 10, 15, 30, 123456000));
+      timesheets.add(timesheet);
+    }
+
+    assertEquals(timesheets.size(), jdbcUtil.copyIn(Timesheet.class, timesheets.iterator()));
+    assertLoaded(timesheets);
+  }
+
+  @Test
+  public void copyIn_rowsAcrossChunks() {
+    // more than 64K characters of csv so the rows are sent in several chunks. One value is larger
+    // than a chunk by itself.
+    List<Timesheet> timesheets = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      Timesheet timesheet = createTimesheet(i);
+      timesheet.setUserComments(i + " " + COMMENTS.get(i % COMMENTS.size()) + " €");
+      timesheets.add(timesheet);
+    }
+    timesheets.get(1500).setApproverComments(StringUtils.repeat("ab,\"\n€", 20_000));
+
+    assertEquals(timesheets.size(), jdbcUtil.copyIn(Timesheet.class, timesheets.iterator()));
+    assertLoaded(timesheets);
+  }
+
+  // 5 persons in the seed data. (person_id, start_date) is unique
+  private Timesheet createTimesheet(int i) {
+    LocalDate startDate = START_DATE.plusDays(7L * (i / 5));
+    Timesheet timesheet = new Timesheet(null, startDate, startDate.plusDays(7), i % 5 + 1);
+    timesheet.setStatus("Draft");
+    return timesheet;
+  }
+
+  private void assertLoaded(List<Timesheet> expected) {
+    List<Timesheet> loaded =
+        jdbcTemplate.query(
+            "select * from timesheet where start_date < '2020-01-01'"
+                + " order by start_date, person_id",
+            jdbcUtil.getRowMapper(Timesheet.class));
+    assertEquals(expected.size(), loaded.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Timesheet timesheet = expected.get(i);
+      Timesheet loadedTimesheet = loaded.get(i);
+      assertEquals(timesheet.getPersonId(), loadedTimesheet.getPersonId());
+      assertEquals(timesheet.getStartDate(), loadedTimesheet.getStartDate());
+      assertEquals(timesheet.getEndDate(), loadedTimesheet.getEndDate());
+      assertEquals(timesheet.getUserComments(), loadedTimesheet.getUserComments(), "row " + i);
+      assertEquals(timesheet.getApproverComments(), loadedTimesheet.getApproverComments());
+      assertEquals(timesheet.getSubmittedOn(), loadedTimesheet.getSubmittedOn());
+      assertEquals(timesheet.getStatus(), loadedTimesheet.getStatus());
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package org.jdbctemplatemapper.dbutil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.SkillsdemoApplication;
+import org.skillsdemo.model.Project;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * findById() entity cache with Integer and Long ids. Project has an Integer id and its cache
+ * (projectEntityCache in ehcache.xml) is typed with Integer keys. Write behind is on (see
+ * JdbcUtilConfig).
+ *
+ * @author ajoseph
+ */
+@SpringBootTest(classes = SkillsdemoApplication.class)
+@ActiveProfiles("test")
+public class JdbcUtilEntityCacheTest {
+  @Autowired private JdbcUtil jdbcUtil;
+  @Autowired private CacheManager cacheManager;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private Cache cache;
+
+  @BeforeEach
+  public void setup() {
+    cache = cacheManager.getCache("projectEntityCache");
+    cache.clear();
+  }
+
+  @Test
+  public void findById_longAndIntegerIdShareTheEntry() {
+    Project project = jdbcUtil.findById(1L, Project.class);
+    assertNotNull(project);
+    assertNotNull(cache.get(1));
+
+    assertEquals(project.getName(), jdbcUtil.findById(1, Project.class).getName());
+  }
+
+  @Test
+  @WithMockUser
+  public void update_integerIdEvictsEntryOfLongLookup() {
+    Project project = jdbcUtil.findById(1L, Project.class);
+    String name = project.getName();
+    try {
+      project.setName(name + " renamed");
+      jdbcUtil.update(project);
+      assertNull(cache.get(1));
+      assertEquals(name + " renamed", jdbcUtil.findById(1L, Project.class).getName());
+    } finally {
+      Project renamed = jdbcUtil.findById(1, Project.class);
+      renamed.setName(name);
+      jdbcUtil.update(renamed);
+    }
+  }
+
+  @Test
+  @WithMockUser
+  public void findById_queuedUpdateIsReadInItsTransaction() {
+    Project cached = jdbcUtil.findById(1, Project.class);
+    assertNotNull(cache.get(1));
+
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              Project project = jdbcUtil.findById(1, Project.class);
+              project.setName(cached.getName() + " renamed");
+              jdbcUtil.update(project);
+              assertNull(cache.get(1));
+              assertEquals(
+                  cached.getName() + " renamed", jdbcUtil.findById(1, Project.class).getName());
+
+              // another thread reading the committed record refills the cache
+              cache.put(1, cached);
+              assertEquals(
+                  cached.getName() + " renamed", jdbcUtil.findById(1L, Project.class).getName());
+              status.setRollbackOnly();
+            });
+
+    assertEquals(cached.getName(), jdbcUtil.findById(1, Project.class).getName());
+  }
+}
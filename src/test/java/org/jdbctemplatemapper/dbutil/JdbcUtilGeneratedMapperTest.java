@@ -0,0 +1,220 @@
+package org.jdbctemplatemapper.dbutil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.jdbctemplatemapper.dbutil.EntityDescriptor.Property;
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.model.Person;
+import org.skillsdemo.model.PersonCredential;
+import org.skillsdemo.model.PersonProject;
+import org.skillsdemo.model.Project;
+import org.skillsdemo.model.TimeEntry;
+import org.skillsdemo.model.Timesheet;
+import org.skillsdemo.model.TimesheetLine;
+import org.skillsdemo.util.MockResultSet;
+
+/**
+ * The generated IEntityMapper classes against the reflective mapping of MappingPlan. The mappers
+ * are only generated with the maven profile 'generated-mappers', without it the tests are skipped:
+ *
+ * <p>mvn -P generated-mappers test
+ *
+ * @author ajoseph
+ */
+public class JdbcUtilGeneratedMapperTest {
+  // 'id' without the prefix belongs to another object of the query
+  private static final String[] COLUMNS = {
+    "id",
+    "m_id",
+    "m_name",
+    "m_quantity",
+    "m_total",
+    "m_ratio",
+    "m_active",
+    "m_grade",
+    "m_ref_id",
+    "m_amount",
+    "m_approved",
+    "m_price",
+    "m_due_date",
+    "m_created_on",
+    "m_status",
+    "m_note",
+    "m_comments",
+    "m_display_name"
+  };
+
+  private static final Object[] ROW = {
+    99,
+    7,
+    "Widget",
+    3,
+    10_000_000_000L,
+    0.25,
+    true,
+    "B",
+    42L,
+    12.5,
+    false,
+    new BigDecimal("19.99"),
+    Date.valueOf(LocalDate.of(2020, 1, 6)),
+    Timestamp.valueOf(LocalDateTime.of(2020, 1, 6, 10, 15, 30)),
+    "APPROVED",
+    "note",
+    "comments",
+    "read only"
+  };
+
+  @Test
+  public void mapRow_sameAsReflectiveMapping() throws SQLException {
+    EntityDescriptor descriptor = getDescriptorWithEntityMapper(MapperTestEntity.class);
+
+    MapperTestEntity generated = mapRow(descriptor, true, COLUMNS, ROW);
+    assertEquals(mapRow(descriptor, false, COLUMNS, ROW), generated);
+    assertEquals(7, generated.getId());
+    assertEquals(10_000_000_000L, generated.getTotal());
+    assertEquals('B', generated.getGrade());
+    assertEquals(LocalDateTime.of(2020, 1, 6, 10, 15, 30), generated.getCreatedOn());
+    assertEquals(MapperTestEntity.Status.APPROVED, generated.getStatus());
+    // the write only property is set from its column
+    assertEquals("comments".length(), generated.getCommentsLength());
+  }
+
+  @Test
+  public void mapRow_nullColumns() throws SQLException {
+    EntityDescriptor descriptor = getDescriptorWithEntityMapper(MapperTestEntity.class);
+    Object[] nulls = new Object[COLUMNS.length];
+
+    MapperTestEntity generated = mapRow(descriptor, true, COLUMNS, nulls);
+    assertEquals(mapRow(descriptor, false, COLUMNS, nulls), generated);
+    // primitives keep their default value
+    assertEquals(0, generated.getQuantity());
+    assertEquals(0L, generated.getTotal());
+    assertFalse(generated.isActive());
+    assertEquals('\0', generated.getGrade());
+    assertNull(generated.getId());
+    assertNull(generated.getApproved());
+  }
+
+  @Test
+  public void mapRow_missingColumns() throws SQLException {
+    EntityDescriptor descriptor = getDescriptorWithEntityMapper(MapperTestEntity.class);
+    String[] columns = {"m_quantity", "m_name", "other"};
+    Object[] row = {5, "Widget", "x"};
+
+    MapperTestEntity generated = mapRow(descriptor, true, columns, row);
+    assertEquals(mapRow(descriptor, false, columns, row), generated);
+    assertEquals(5, generated.getQuantity());
+    assertEquals("Widget", generated.getName());
+    assertNull(generated.getId());
+    assertNull(generated.getPrice());
+  }
+
+  @Test
+  public void getValues_inReadablePropertyNameOrder() throws SQLException {
+    EntityDescriptor descriptor = getDescriptorWithEntityMapper(MapperTestEntity.class);
+    IEntityMapper<Object> entityMapper = descriptor.getEntityMapper();
+    MapperTestEntity obj = mapRow(descriptor, false, COLUMNS, ROW);
+
+    String[] names = entityMapper.getReadablePropertyNames();
+    Object[] values = entityMapper.getValues(obj);
+    assertEquals(names.length, values.length);
+    for (int i = 0; i < names.length; i++) {
+      assertEquals(descriptor.getRequiredProperty(names[i]).getValue(obj), values[i], names[i]);
+    }
+    assertEquals(
+        descriptor.getPropertyValues(obj, true), getReflectivePropertyValues(descriptor, obj));
+  }
+
+  @Test
+  public void modelMappers_haveTheBeanProperties() {
+    for (Class<?> clazz :
+        Arrays.asList(
+            Person.class,
+            PersonCredential.class,
+            PersonProject.class,
+            Project.class,
+            Timesheet.class,
+            TimesheetLine.class,
+            TimeEntry.class)) {
+      EntityDescriptor descriptor = getDescriptorWithEntityMapper(clazz);
+      IEntityMapper<Object> entityMapper = descriptor.getEntityMapper();
+      assertEquals(
+          getPropertyNames(descriptor, Property::isWritable),
+          toSet(entityMapper.getWritablePropertyNames()),
+          clazz.getSimpleName());
+      assertEquals(
+          getPropertyNames(descriptor, Property::isReadable),
+          toSet(entityMapper.getReadablePropertyNames()),
+          clazz.getSimpleName());
+    }
+  }
+
+  // skips the test when the class does not have a generated mapper
+  private static EntityDescriptor getDescriptorWithEntityMapper(Class<?> clazz) {
+    EntityDescriptor descriptor =
+        new EntityDescriptor(
+            clazz, toSnakeCase(clazz.getSimpleName()), JdbcUtilGeneratedMapperTest::toSnakeCase);
+    assumeTrue(
+        descriptor.getEntityMapper() != null,
+        "no generated mapper for " + clazz.getSimpleName() + ". Run with -P generated-mappers");
+    return descriptor;
+  }
+
+  private static <T> T mapRow(
+      EntityDescriptor descriptor, boolean useEntityMapper, String[] columns, Object[] row)
+      throws SQLException {
+    ResultSet rs = MockResultSet.createInMemory(columns, new Object[][] {row});
+    rs.next();
+    MappingPlan plan = new MappingPlan(descriptor, "m_", Arrays.asList(columns), useEntityMapper);
+    @SuppressWarnings("unchecked")
+    T obj = (T) plan.newInstance(rs);
+    return obj;
+  }
+
+  private static Map<String, Object> getReflectivePropertyValues(
+      EntityDescriptor descriptor, Object obj) {
+    Map<String, Object> values = new HashMap<>();
+    for (Property property : descriptor.getProperties()) {
+      if (property.isReadable()) {
+        values.put(property.getColumnName(), property.getValue(obj));
+      }
+    }
+    return values;
+  }
+
+  private static Set<String> getPropertyNames(
+      EntityDescriptor descriptor, Predicate<Property> filter) {
+    return descriptor
+        .getProperties()
+        .stream()
+        .filter(filter)
+        .map(Property::getName)
+        .collect(Collectors.toSet());
+  }
+
+  private static Set<String> toSet(String[] names) {
+    return Arrays.stream(names).collect(Collectors.toSet());
+  }
+
+  private static String toSnakeCase(String name) {
+    return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+  }
+}
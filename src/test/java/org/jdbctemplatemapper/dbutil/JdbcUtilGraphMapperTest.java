@@ -0,0 +1,140 @@
+package org.jdbctemplatemapper.dbutil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.model.TimeEntry;
+import org.skillsdemo.model.Timesheet;
+import org.skillsdemo.model.TimesheetLine;
+import org.skillsdemo.util.MockResultSet;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * graphMapper() with the timesheet -&gt; lines -&gt; entries graph of
+ * TimesheetDao.fetchFullTimesheet(). The rows are those of its left joins, held in memory.
+ *
+ * @author ajoseph
+ */
+public class JdbcUtilGraphMapperTest {
+  private static final String[] COLUMNS = {
+    "id",
+    "person_id",
+    "start_date",
+    "status",
+    "timesheetline_id",
+    "timesheetline_timesheet_id",
+    "timesheetline_project_id",
+    "timesheetline_project_name",
+    "timeentry_timesheet_line_id",
+    "timeentry_entry_date",
+    "timeentry_entry_hours"
+  };
+
+  // JdbcUtil does not connect to the database to map ResultSets
+  private final JdbcUtil jdbcUtil =
+      new JdbcUtil(new NamedParameterJdbcTemplate(new DriverManagerDataSource()));
+
+  private final GraphMapper<Timesheet> graphMapper =
+      new GraphMapper<>(new SelectMapper<>(Timesheet.class))
+          .toMany(
+              "timesheetLines",
+              new GraphMapper<>(new SelectMapper<>(TimesheetLine.class, "timesheetline_"))
+                  .toMany("timeEntries", new SelectMapper<>(TimeEntry.class, "timeentry_")));
+
+  @Test
+  public void graphMapper_timesheetWithoutLines() {
+    List<Timesheet> timesheets =
+        map(new Object[] {1, 3, date(6), "Draft", null, null, null, null, null, null, null});
+
+    assertEquals(1, timesheets.size());
+    Timesheet timesheet = timesheets.get(0);
+    assertEquals(1, timesheet.getId());
+    assertEquals(3, timesheet.getPersonId());
+    assertEquals(LocalDate.of(2020, 1, 6), timesheet.getStartDate());
+    assertEquals("Draft", timesheet.getStatus());
+    assertTrue(timesheet.getTimesheetLines().isEmpty());
+  }
+
+  @Test
+  public void graphMapper_lineWithoutEntries() {
+    List<Timesheet> timesheets =
+        map(
+            new Object[] {1, 3, date(6), "Draft", 10, 1, 2, "MDM", 10, date(6), 8.0},
+            new Object[] {1, 3, date(6), "Draft", 10, 1, 2, "MDM", 10, date(7), null},
+            new Object[] {1, 3, date(6), "Draft", 11, 1, 4, "OAuth", null, null, null});
+
+    assertEquals(1, timesheets.size());
+    List<TimesheetLine> lines = timesheets.get(0).getTimesheetLines();
+    assertEquals(2, lines.size());
+
+    TimesheetLine line = lines.get(0);
+    assertEquals(10, line.getId());
+    assertEquals(1, line.getTimesheetId());
+    assertEquals("MDM", line.getProjectName());
+    assertEquals(2, line.getTimeEntries().size());
+    assertEquals(LocalDate.of(2020, 1, 6), line.getTimeEntries().get(0).getEntryDate());
+    assertEquals(8.0, line.getTimeEntries().get(0).getEntryHours());
+    // an entry without hours is still an entry
+    assertEquals(LocalDate.of(2020, 1, 7), line.getTimeEntries().get(1).getEntryDate());
+    assertNull(line.getTimeEntries().get(1).getEntryHours());
+
+    assertEquals(11, lines.get(1).getId());
+    assertEquals(4, lines.get(1).getProjectId());
+    assertTrue(lines.get(1).getTimeEntries().isEmpty());
+  }
+
+  @Test
+  public void graphMapper_objectsAreCreatedOnceInRowOrder() {
+    List<Timesheet> timesheets =
+        map(
+            new Object[] {2, 3, date(13), "Draft", 21, 2, 1, "MyWorld", 21, date(13), 1.0},
+            new Object[] {2, 3, date(13), "Draft", 21, 2, 1, "MyWorld", 21, date(14), 2.0},
+            new Object[] {2, 3, date(13), "Draft", 20, 2, 5, "Audit", 20, date(13), 3.0},
+            new Object[] {1, 3, date(6), "Draft", 10, 1, 2, "MDM", 10, date(6), 4.0},
+            // the timesheet and line of the first rows again
+            new Object[] {2, 3, date(13), "Changed", 21, 2, 9, "Changed", 21, date(15), 5.0});
+
+    // in the order the timesheets first appear, not by id
+    assertEquals(2, timesheets.size());
+    Timesheet timesheet = timesheets.get(0);
+    assertEquals(2, timesheet.getId());
+    assertEquals(1, timesheets.get(1).getId());
+    // the first row of an object is the one mapped
+    assertEquals("Draft", timesheet.getStatus());
+
+    List<TimesheetLine> lines = timesheet.getTimesheetLines();
+    assertEquals(2, lines.size());
+    assertEquals(21, lines.get(0).getId());
+    assertEquals(20, lines.get(1).getId());
+    assertEquals("MyWorld", lines.get(0).getProjectName());
+    assertEquals(3, lines.get(0).getTimeEntries().size());
+    assertEquals(5.0, lines.get(0).getTimeEntries().get(2).getEntryHours());
+    assertEquals(1, lines.get(1).getTimeEntries().size());
+
+    assertEquals(1, timesheets.get(1).getTimesheetLines().size());
+    assertEquals(10, timesheets.get(1).getTimesheetLines().get(0).getId());
+  }
+
+  @Test
+  public void graphMapper_emptyResultSet() {
+    assertTrue(map().isEmpty());
+  }
+
+  private List<Timesheet> map(Object[]... rows) {
+    ResultSet rs = MockResultSet.createInMemory(COLUMNS, rows);
+    return jdbcUtil.graphMapper(rs, graphMapper);
+  }
+
+  // dates in January 2020 as the jdbc driver returns them
+  private static Date date(int dayOfMonth) {
+    return Date.valueOf(LocalDate.of(2020, 1, dayOfMonth));
+  }
+}
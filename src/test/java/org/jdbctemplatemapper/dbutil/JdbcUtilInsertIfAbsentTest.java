@@ -0,0 +1,76 @@
+package org.jdbctemplatemapper.dbutil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.SkillsdemoApplication;
+import org.skillsdemo.model.PersonProject;
+import org.skillsdemo.model.Timesheet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * insertIfAbsent() and insertAllIfAbsent() against the seed data. Each test is rolled back.
+ *
+ * @author ajoseph
+ */
+@SpringBootTest(classes = SkillsdemoApplication.class)
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser
+public class JdbcUtilInsertIfAbsentTest {
+  @Autowired private JdbcUtil jdbcUtil;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void insertIfAbsent_existingRecordIsNotChanged() {
+    LocalDate startDate = LocalDate.of(2020, 1, 5);
+    Timesheet existing = new Timesheet(null, startDate, startDate.plusDays(7), 3);
+    existing.setStatus("Submitted");
+    jdbcUtil.insert(existing);
+
+    Timesheet timesheet = new Timesheet(null, startDate, startDate.plusDays(7), 3);
+    timesheet.setStatus("Draft");
+    assertEquals(0, jdbcUtil.insertIfAbsent(timesheet, "personId", "startDate"));
+    assertNull(timesheet.getId());
+    assertEquals("Submitted", jdbcUtil.findById(existing.getId(), Timesheet.class).getStatus());
+
+    Timesheet nextWeek = new Timesheet(null, startDate.plusDays(7), startDate.plusDays(14), 3);
+    assertEquals(1, jdbcUtil.insertIfAbsent(nextWeek, "personId", "startDate"));
+    assertNotNull(jdbcUtil.findById(nextWeek.getId(), Timesheet.class));
+  }
+
+  @Test
+  public void insertAllIfAbsent_onlyInsertedObjectsGetIds() {
+    // person 5 already has project 2
+    List<PersonProject> personProjects =
+        Arrays.asList(personProject(5, 1), personProject(5, 2), personProject(5, 3));
+    assertEquals(2, jdbcUtil.insertAllIfAbsent(personProjects, "personId", "projectId"));
+
+    assertNotNull(personProjects.get(0).getId());
+    assertNull(personProjects.get(1).getId());
+    assertNotNull(personProjects.get(2).getId());
+    assertEquals(
+        personProjects.get(2).getId(),
+        jdbcTemplate.queryForObject(
+            "select id from person_project where person_id = 5 and project_id = 3",
+            Integer.class));
+  }
+
+  private PersonProject personProject(Integer personId, Integer projectId) {
+    PersonProject personProject = new PersonProject();
+    personProject.setPersonId(personId);
+    personProject.setProjectId(projectId);
+    return personProject;
+  }
+}
@@ -0,0 +1,51 @@
+package org.jdbctemplatemapper.dbutil;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * The property types the generated mappers handle, for JdbcUtilGeneratedMapperTest. Has primitives
+ * which keep their default value when the column is NULL, a read only property and a write only
+ * property.
+ *
+ * @author ajoseph
+ */
+@Data
+@GenerateMapper
+public class MapperTestEntity {
+  private Integer id;
+  private String name;
+  private int quantity;
+  private long total;
+  private double ratio;
+  private boolean active;
+  private char grade;
+  private Long refId;
+  private Double amount;
+  private Boolean approved;
+  private BigDecimal price;
+  private LocalDate dueDate;
+  private LocalDateTime createdOn;
+  private Status status;
+
+  private String note;
+  // set by the write only property 'comments'
+  private int commentsLength;
+
+  public enum Status {
+    DRAFT,
+    APPROVED
+  }
+
+  public String getDisplayName() {
+    return name + " (" + status + ")";
+  }
+
+  // write only
+  public void setComments(String comments) {
+    this.commentsLength = comments == null ? 0 : comments.length();
+  }
+}
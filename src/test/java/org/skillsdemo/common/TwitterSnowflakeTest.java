@@ -0,0 +1,163 @@
+package org.skillsdemo.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * TwitterSnowflake id reservation from several threads, ranges of ids across milliseconds and
+ * backward clock steps.
+ *
+ * @author ajoseph
+ */
+public class TwitterSnowflakeTest {
+  // ids per millisecond
+  private static final int SEQUENCE_SIZE = 4096;
+
+  @Test
+  public void nextIds_uniqueAcrossThreads() throws Exception {
+    TwitterSnowflake snowflake = new TwitterSnowflake(1);
+    int threadCount = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<List<long[]>>> futures = new ArrayList<>();
+      for (int t = 0; t < threadCount; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  List<long[]> calls = new ArrayList<>();
+                  for (int i = 0; i < 200; i++) {
+                    if (i % 2 == 0) {
+                      calls.add(new long[] {snowflake.nextId()});
+                    } else {
+                      calls.add(snowflake.nextIds(ThreadLocalRandom.current().nextInt(1, 300)));
+                    }
+                  }
+                  return calls;
+                }));
+      }
+      start.countDown();
+
+      Set<Long> ids = new HashSet<>();
+      int total = 0;
+      for (Future<List<long[]>> future : futures) {
+        for (long[] callIds : future.get()) {
+          assertAscending(callIds);
+          for (long id : callIds) {
+            ids.add(id);
+          }
+          total += callIds.length;
+        }
+      }
+      assertEquals(total, ids.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void nextIds_moreThanTheIdsOfAMillisecond() {
+    TwitterSnowflake snowflake = new TwitterSnowflake(5);
+    int n = SEQUENCE_SIZE * 3 + 10;
+    long[] ids = snowflake.nextIds(n);
+
+    assertEquals(n, ids.length);
+    assertAscending(ids);
+    Set<Long> timestamps = new HashSet<>();
+    for (long id : ids) {
+      long[] parsed = snowflake.parse(id);
+      timestamps.add(parsed[0]);
+      assertEquals(5, parsed[1]);
+    }
+    assertTrue(timestamps.size() >= 4, "timestamps: " + timestamps.size());
+    // ids after the range continue from it
+    assertTrue(snowflake.nextId() > ids[n - 1]);
+  }
+
+  @Test
+  public void nextIds_rangeContinuesFromTheSameMillisecond() {
+    long now = System.currentTimeMillis();
+    // the clock stands still. The second call gets the rest of the millisecond
+    TwitterSnowflake snowflake = new TwitterSnowflake(1).withClock(() -> now);
+    long[] first = snowflake.nextIds(100);
+    long[] second = snowflake.nextIds(SEQUENCE_SIZE - 100);
+
+    assertEquals(first[99] + 1, second[0]);
+    assertAscending(second);
+    assertEquals(SEQUENCE_SIZE - 1, snowflake.parse(second[second.length - 1])[2]);
+  }
+
+  @Test
+  public void nextId_smallBackwardClockStepIsWaitedOut() {
+    long now = System.currentTimeMillis();
+    AtomicInteger reads = new AtomicInteger();
+    TwitterSnowflake snowflake =
+        new TwitterSnowflake(1).withClock(clock(reads, now, now - 10, now + 1));
+    long first = snowflake.nextId();
+
+    long second = snowflake.nextId();
+    assertTrue(second > first);
+    assertEquals(now + 1, snowflake.parse(second)[0]);
+    // the clock was read again after the wait
+    assertEquals(3, reads.get());
+  }
+
+  @Test
+  public void nextId_largeBackwardClockStepFails() {
+    long now = System.currentTimeMillis();
+    TwitterSnowflake snowflake =
+        new TwitterSnowflake(1).withClock(clock(new AtomicInteger(), now, now - 11));
+    snowflake.nextId();
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, snowflake::nextId);
+    assertEquals("Invalid System Clock! Moved back 11 milliseconds", e.getMessage());
+  }
+
+  @Test
+  public void nextId_backwardClockStepFailsWhenWaitingIsOff() {
+    long now = System.currentTimeMillis();
+    TwitterSnowflake snowflake =
+        new TwitterSnowflake(1)
+            .withMaxClockBackwardMillis(0)
+            .withClock(clock(new AtomicInteger(), now, now - 1));
+    snowflake.nextId();
+
+    assertThrows(IllegalStateException.class, snowflake::nextId);
+  }
+
+  // returns the times in order, then the last one again and again
+  private static LongSupplier clock(AtomicInteger reads, long... times) {
+    Deque<Long> queue = new ArrayDeque<>();
+    Arrays.stream(times).forEach(queue::add);
+    long last = times[times.length - 1];
+    return () -> {
+      reads.incrementAndGet();
+      return queue.isEmpty() ? last : queue.poll();
+    };
+  }
+
+  private static void assertAscending(long[] ids) {
+    for (int i = 1; i < ids.length; i++) {
+      assertTrue(ids[i] > ids[i - 1], "ids not ascending at " + i);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.skillsdemo.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.common.AppConstants;
+import org.skillsdemo.config.StatementBudgetProperties;
+import org.skillsdemo.exception.StatementBudgetExceededException;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * StatementBudgetFilter with and without the Server-Timing header. The budget is checked either
+ * way.
+ *
+ * @author ajoseph
+ */
+public class StatementBudgetFilterTest {
+  private final StatementBudgetProperties properties = new StatementBudgetProperties();
+  private final StatementBudgetFilter filter = new StatementBudgetFilter();
+
+  @BeforeEach
+  public void setUp() {
+    ReflectionTestUtils.setField(filter, "properties", properties);
+    ReflectionTestUtils.setField(filter, "tracker", new RequestStatementTracker());
+    MDC.put(AppConstants.CORRELATION_ID_HEADER, "test-correlation-id");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    MDC.remove(AppConstants.CORRELATION_ID_HEADER);
+  }
+
+  @Test
+  public void doFilter_serverTimingHeaderOffByDefault() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/test"), response, runStatements(2));
+
+    assertNull(response.getHeader("Server-Timing"));
+    assertEquals("ok", response.getContentAsString());
+  }
+
+  @Test
+  public void doFilter_serverTimingHeader() throws Exception {
+    properties.setServerTimingHeader(true);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/test"), response, runStatements(2));
+
+    assertEquals("db;dur=2.0;desc=\"2 statements\"", response.getHeader("Server-Timing"));
+    assertEquals("ok", response.getContentAsString());
+  }
+
+  @Test
+  public void doFilter_budgetCheckedWithoutTheHeader() {
+    properties.setMaxStatements(1);
+    properties.setFailOnExceeded(true);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertThrows(
+        StatementBudgetExceededException.class,
+        () ->
+            filter.doFilter(
+                new MockHttpServletRequest("GET", "/test"), response, runStatements(2)));
+    assertNull(response.getHeader("Server-Timing"));
+  }
+
+  // runs distinct statements of 1 ms each and writes a body
+  private FilterChain runStatements(int count) {
+    RequestStatementTracker tracker =
+        (RequestStatementTracker) ReflectionTestUtils.getField(filter, "tracker");
+    return (request, response) -> {
+      for (int i = 0; i < count; i++) {
+        tracker.statementExecuted(null, "query", "select " + i, false, false, 1, 1_000_000L);
+      }
+      response.getWriter().write("ok");
+    };
+  }
+}
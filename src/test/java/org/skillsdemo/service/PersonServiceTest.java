@@ -0,0 +1,98 @@
+package org.skillsdemo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.common.ApiError;
+import org.skillsdemo.dao.PersonDao;
+import org.skillsdemo.exception.CustomValidationException;
+import org.skillsdemo.framework.ApplicationExceptionHandler;
+import org.skillsdemo.model.GridSubmitData;
+import org.skillsdemo.model.Person;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * PersonService grid submits against the seed data, logged in as admin1. Each test is rolled back.
+ *
+ * <p>Person updates are queued (write behind) and Person is in the entity cache, see
+ * JdbcUtilConfig. The queued writes are flushed before reading back.
+ *
+ * @author ajoseph
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class PersonServiceTest {
+  @Autowired private PersonService personService;
+  @Autowired private PersonDao personDao;
+  @Autowired private ApplicationExceptionHandler exceptionHandler;
+
+  @Test
+  @WithUserDetails(value = "admin1", userDetailsServiceBeanName = "appUserDetailsService")
+  public void processPersonsSubmit_duplicateUsernameOfUpdateIsNotReportedAsFailedDelete() {
+    Person renamed = personDao.findById(5, Person.class);
+    renamed.setUsername("user1");
+
+    GridSubmitData<Person> gridSubmitData = new GridSubmitData<>();
+    gridSubmitData.getUpdated().add(renamed);
+    gridSubmitData.getDestroyed().add(personDao.findById(4, Person.class));
+
+    DuplicateKeyException e =
+        assertThrows(
+            DuplicateKeyException.class, () -> personService.processPersonsSubmit(gridSubmitData));
+    ApiError apiError = (ApiError) exceptionHandler.handleValidationException(e).getBody();
+    assertEquals("Save failed!. Duplicate record user1", apiError.getErrors().get(0).getMessage());
+  }
+
+  @Test
+  @WithUserDetails(value = "admin1", userDetailsServiceBeanName = "appUserDetailsService")
+  public void processPersonsSubmit_createAndUpdate() {
+    Person created = new Person();
+    created.setUsername("user9");
+    created.setFirstName("Ann");
+    created.setLastName("User9");
+    created.setRole("ROLE_USER");
+    created.setAccountStatus(1);
+    created.setReportsToId(2);
+    // read into the entity cache before the update
+    Person updated = personDao.findById(5, Person.class);
+    updated.setFirstName("Renamed");
+
+    GridSubmitData<Person> gridSubmitData = new GridSubmitData<>();
+    gridSubmitData.getCreated().add(created);
+    gridSubmitData.getUpdated().add(updated);
+    personService.processPersonsSubmit(gridSubmitData);
+    personDao.flush();
+
+    assertNotNull(created.getId());
+    Person saved = personDao.findById(created.getId(), Person.class);
+    assertEquals("user9", saved.getUsername());
+    assertEquals("Joe Admin1", saved.getCreatedBy());
+    assertEquals("pass", personDao.getPassword(created.getId()));
+    // not the cached copy
+    assertEquals("Renamed", personDao.findById(5, Person.class).getFirstName());
+  }
+
+  @Test
+  @WithUserDetails(value = "admin1", userDetailsServiceBeanName = "appUserDetailsService")
+  public void processPersonsSubmit_deleteOfPersonInUse() {
+    // user1 has timesheets
+    GridSubmitData<Person> gridSubmitData = new GridSubmitData<>();
+    gridSubmitData.getDestroyed().add(personDao.findById(3, Person.class));
+
+    CustomValidationException e =
+        assertThrows(
+            CustomValidationException.class,
+            () -> personService.processPersonsSubmit(gridSubmitData));
+    assertEquals(
+        "Delete failed. User Greg User1 is being used in the application.",
+        e.getApiError().getErrors().get(0).getMessage());
+  }
+}
@@ -0,0 +1,52 @@
+package org.skillsdemo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.common.ApiError;
+import org.skillsdemo.dao.ProjectDao;
+import org.skillsdemo.framework.ApplicationExceptionHandler;
+import org.skillsdemo.model.GridSubmitData;
+import org.skillsdemo.model.Project;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * ProjectService grid submits against the seed data. Each test is rolled back.
+ *
+ * @author ajoseph
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ProjectServiceTest {
+  @Autowired private ProjectService projectService;
+  @Autowired private ProjectDao projectDao;
+  @Autowired private ApplicationExceptionHandler exceptionHandler;
+
+  @Test
+  @WithMockUser
+  public void processProjectsSubmit_duplicateNameOfUpdateIsNotReportedAsFailedDelete() {
+    Project existing = projectDao.findById(1, Project.class);
+    Project renamed = projectDao.findById(2, Project.class);
+    renamed.setName(existing.getName());
+
+    GridSubmitData<Project> gridSubmitData = new GridSubmitData<>();
+    gridSubmitData.getUpdated().add(renamed);
+    gridSubmitData.getDestroyed().add(projectDao.findById(3, Project.class));
+
+    DuplicateKeyException e =
+        assertThrows(
+            DuplicateKeyException.class,
+            () -> projectService.processProjectsSubmit(gridSubmitData));
+    ApiError apiError = (ApiError) exceptionHandler.handleValidationException(e).getBody();
+    assertEquals(
+        "Save failed!. Duplicate record " + existing.getName(),
+        apiError.getErrors().get(0).getMessage());
+  }
+}
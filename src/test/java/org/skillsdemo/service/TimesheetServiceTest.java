@@ -0,0 +1,215 @@
+package org.skillsdemo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.skillsdemo.dao.TimesheetDao;
+import org.skillsdemo.exception.CustomValidationException;
+import org.skillsdemo.model.GridSubmitData;
+import org.skillsdemo.model.TimeEntry;
+import org.skillsdemo.model.Timesheet;
+import org.skillsdemo.model.TimesheetLine;
+import org.skillsdemo.model.TimesheetPayload;
+import org.skillsdemo.model.TimesheetRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * TimesheetService against the seed data, logged in as admin1. Each test is rolled back.
+ *
+ * <p>Runs with the JdbcUtil modes of JdbcUtilConfig: dirty tracking of Timesheet, write behind and
+ * SEQUENCE_POOL ids of Timesheet and TimesheetLine. The queued writes are flushed before the
+ * timesheet is read back since the rolled back transaction never commits.
+ *
+ * @author ajoseph
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@WithUserDetails(value = "admin1", userDetailsServiceBeanName = "appUserDetailsService")
+public class TimesheetServiceTest {
+  @Autowired private TimesheetService timesheetService;
+  @Autowired private TimesheetDao timesheetDao;
+
+  @Test
+  public void createTempTimesheet_weekWithTimesheetIsRejected() {
+    // admin1 has a timesheet for the week starting 01/06/2020
+    CustomValidationException e =
+        assertThrows(
+            CustomValidationException.class,
+            () -> timesheetService.createTempTimesheet(LocalDate.of(2020, 1, 8)));
+    assertEquals(
+        "Timesheet for week starting 01/06/2020 already exists.",
+        e.getApiError().getErrors().get(0).getMessage());
+  }
+
+  @Test
+  public void createTempTimesheet_newWeek() {
+    Integer id = timesheetService.createTempTimesheet(LocalDate.of(2021, 3, 3));
+
+    Timesheet timesheet = timesheetService.getTimesheet(id);
+    assertEquals(LocalDate.of(2021, 3, 1), timesheet.getStartDate());
+    assertEquals("Draft", timesheet.getStatus());
+  }
+
+  @Test
+  public void saveTimesheet_newTimesheetSave() {
+    Integer id = timesheetService.createTempTimesheet(LocalDate.of(2021, 3, 3));
+    TimesheetPayload payload = payload("Save", "first week");
+    payload.getGridSubmitData().getCreated().add(row(null, 3, 8.0, 8.0, null));
+    payload.getGridSubmitData().getCreated().add(row(null, 1, null, 0.5, 2.0));
+
+    timesheetService.saveTimesheet(id, payload);
+    Timesheet timesheet = fetchFlushed(id);
+
+    assertEquals("Draft", timesheet.getStatus());
+    assertEquals("first week", timesheet.getUserComments());
+    assertEquals(LocalDate.of(2021, 3, 1), timesheet.getStartDate());
+    assertNull(timesheet.getSubmittedBy());
+    List<TimesheetLine> lines = timesheet.getTimesheetLines();
+    assertEquals(2, lines.size());
+    // the line ids from the sequence pool are sent back to the grid
+    List<TimesheetRow> rows = payload.getGridSubmitData().getCreated();
+    assertNotNull(rows.get(0).getId());
+    assertTrue(rows.get(1).getId() > rows.get(0).getId());
+    assertLine(lines.get(0), rows.get(0).getId(), 3, LocalDate.of(2021, 3, 1), 8.0, 8.0, null);
+    assertLine(lines.get(1), rows.get(1).getId(), 1, LocalDate.of(2021, 3, 1), null, 0.5, 2.0);
+
+    // getTimesheet() finds the saved timesheet instead of the temp one
+    assertEquals("Draft", timesheetService.getTimesheet(id).getStatus());
+  }
+
+  @Test
+  public void saveTimesheet_newTimesheetSubmit() {
+    Integer id = timesheetService.createTempTimesheet(LocalDate.of(2021, 3, 10));
+    TimesheetPayload payload = payload("Submit", "done");
+    payload.getGridSubmitData().getCreated().add(row(null, 5, 7.5, null, null));
+
+    timesheetService.saveTimesheet(id, payload);
+    Timesheet timesheet = fetchFlushed(id);
+
+    assertEquals("Pending Approval", timesheet.getStatus());
+    assertEquals("Joe Admin1", timesheet.getSubmittedBy());
+    assertNotNull(timesheet.getSubmittedOn());
+    assertEquals("done", timesheet.getUserComments());
+    assertEquals(1, timesheet.getTimesheetLines().size());
+    assertLine(
+        timesheet.getTimesheetLines().get(0),
+        payload.getGridSubmitData().getCreated().get(0).getId(),
+        5,
+        LocalDate.of(2021, 3, 8),
+        7.5,
+        null,
+        null);
+  }
+
+  @Test
+  public void saveTimesheet_existingTimesheetSave() {
+    // draft timesheet 5 of admin1 has lines 12, 13 and 14 for the projects 3, 1 and 5
+    TimesheetPayload payload = payload("Save", "updated");
+    payload.getGridSubmitData().getUpdated().add(row(12, 3, 1.0, 2.0, 3.0));
+    payload.getGridSubmitData().getDestroyed().add(row(13, 1, null, null, null));
+    // the project of the deleted line on a new line
+    payload.getGridSubmitData().getCreated().add(row(null, 1, 4.0, null, null));
+
+    timesheetService.saveTimesheet(5, payload);
+    Timesheet timesheet = fetchFlushed(5);
+
+    assertEquals("Draft", timesheet.getStatus());
+    assertEquals("updated", timesheet.getUserComments());
+    // the columns which did not change keep their values
+    assertEquals(LocalDate.of(2020, 2, 3), timesheet.getStartDate());
+    assertEquals("Joe Admin1", timesheet.getCreatedBy());
+    assertNull(timesheet.getSubmittedBy());
+
+    List<TimesheetLine> lines = timesheet.getTimesheetLines();
+    assertEquals(3, lines.size());
+    assertLine(lines.get(0), 12, 3, LocalDate.of(2020, 2, 3), 1.0, 2.0, 3.0);
+    assertEquals(14, lines.get(1).getId());
+    Integer newLineId = payload.getGridSubmitData().getCreated().get(0).getId();
+    assertTrue(newLineId > 14);
+    assertLine(lines.get(2), newLineId, 1, LocalDate.of(2020, 2, 3), 4.0, null, null);
+  }
+
+  @Test
+  public void saveTimesheet_existingTimesheetSubmit() {
+    TimesheetPayload payload = payload("Submit", "submitted");
+
+    timesheetService.saveTimesheet(5, payload);
+    Timesheet timesheet = fetchFlushed(5);
+
+    assertEquals("Pending Approval", timesheet.getStatus());
+    assertEquals("Joe Admin1", timesheet.getSubmittedBy());
+    assertNotNull(timesheet.getSubmittedOn());
+    assertEquals("submitted", timesheet.getUserComments());
+    assertEquals("Joe Admin1", timesheet.getUpdatedBy());
+    assertEquals(3, timesheet.getTimesheetLines().size());
+  }
+
+  @Test
+  @WithUserDetails(value = "manager1", userDetailsServiceBeanName = "appUserDetailsService")
+  public void saveTimesheet_approve() {
+    // timesheet 4 of admin1 is pending approval by manager1
+    TimesheetPayload payload = payload("Approve", null);
+    payload.setApproverComments("approved");
+
+    timesheetService.saveTimesheet(4, payload);
+    Timesheet timesheet = fetchFlushed(4);
+
+    assertEquals("Approved", timesheet.getStatus());
+    assertEquals("Karen Manager1", timesheet.getApprovedBy());
+    assertNotNull(timesheet.getApprovedOn());
+    assertEquals("approved", timesheet.getApproverComments());
+    assertEquals("Karen Manager1", timesheet.getUpdatedBy());
+    // the submit is left as it was
+    assertEquals("Joe Admin1", timesheet.getSubmittedBy());
+    assertEquals("Was sick on wednesday", timesheet.getUserComments());
+  }
+
+  // the timesheet as saved in the database
+  private Timesheet fetchFlushed(Integer timesheetId) {
+    timesheetDao.flush();
+    return timesheetDao.fetchFullTimesheet(timesheetId);
+  }
+
+  private static TimesheetPayload payload(String action, String userComments) {
+    TimesheetPayload payload = new TimesheetPayload();
+    payload.setAction(action);
+    payload.setUserComments(userComments);
+    payload.setGridSubmitData(new GridSubmitData<>());
+    return payload;
+  }
+
+  // hours of the first three days of the week, the rest are empty
+  private static TimesheetRow row(Integer id, Integer projectId, Double... hours) {
+    TimesheetRow row = new TimesheetRow();
+    row.setId(id);
+    row.setProjectId(projectId);
+    for (int i = 0; i < hours.length; i++) {
+      row.setHoursDay("hoursDay" + i, hours[i]);
+    }
+    return row;
+  }
+
+  private static void assertLine(
+      TimesheetLine line, Integer id, Integer projectId, LocalDate startDate, Double... hours) {
+    assertEquals(id, line.getId());
+    assertEquals(projectId, line.getProjectId());
+    List<TimeEntry> entries = line.getTimeEntries();
+    assertEquals(7, entries.size());
+    for (int i = 0; i < entries.size(); i++) {
+      assertEquals(startDate.plusDays(i), entries.get(i).getEntryDate());
+      assertEquals(i < hours.length ? hours[i] : null, entries.get(i).getEntryHours());
+    }
+  }
+}
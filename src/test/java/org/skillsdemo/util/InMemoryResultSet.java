@@ -0,0 +1,1177 @@
+package org.skillsdemo.util;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * ResultSet over rows held in memory. Used by the JdbcUtil benchmarks (src/jmh/java) where the
+ * mocked ResultSet of MockResultSet would cost more than the mapping being measured, and by the
+ * mapper tests. The getters are plain array reads which do not allocate.
+ *
+ * <p>Values are returned as they are in the data so use the types the jdbc driver returns (Integer,
+ * Long, String, BigDecimal, Timestamp etc). It is forward only, except beforeFirst() rewinds it so
+ * the same rows can be mapped again. Only what the mappers use is implemented, the rest throws
+ * SQLFeatureNotSupportedException.
+ *
+ * @author ajoseph
+ */
+public class InMemoryResultSet implements ResultSet {
+  private final String[] columnNames;
+  private final Object[][] data;
+  private final ResultSetMetaData metaData = new InMemoryResultSetMetaData();
+  private int rowIndex = -1;
+  private boolean lastValueNull;
+  private int fetchSize;
+  private boolean closed;
+
+  /**
+   * @param columnNames - the names of the columns
+   * @param data - the rows. Each row has a value for each column
+   */
+  public InMemoryResultSet(String[] columnNames, Object[][] data) {
+    this.columnNames = columnNames;
+    this.data = data;
+  }
+
+  // the value of the column in the current row. jdbc indexes start at 1
+  private Object getValue(int columnIndex) throws SQLException {
+    if (rowIndex < 0 || rowIndex >= data.length) {
+      throw new SQLException("ResultSet is not positioned on a row");
+    }
+    if (columnIndex < 1 || columnIndex > columnNames.length) {
+      throw new SQLException("Invalid column index " + columnIndex);
+    }
+    Object value = data[rowIndex][columnIndex - 1];
+    lastValueNull = value == null;
+    return value;
+  }
+
+  private static SQLFeatureNotSupportedException unsupported() {
+    return new SQLFeatureNotSupportedException("Not supported by InMemoryResultSet");
+  }
+
+  @Override
+  public boolean next() throws SQLException {
+    if (rowIndex < data.length) {
+      rowIndex++;
+    }
+    return rowIndex < data.length;
+  }
+
+  @Override
+  public void beforeFirst() throws SQLException {
+    rowIndex = -1;
+  }
+
+  @Override
+  public boolean wasNull() throws SQLException {
+    return lastValueNull;
+  }
+
+  @Override
+  public int findColumn(String columnLabel) throws SQLException {
+    for (int i = 0; i < columnNames.length; i++) {
+      if (columnNames[i].equalsIgnoreCase(columnLabel)) {
+        return i + 1;
+      }
+    }
+    throw new SQLException("Invalid column name " + columnLabel);
+  }
+
+  @Override
+  public Object getObject(int columnIndex) throws SQLException {
+    return getValue(columnIndex);
+  }
+
+  @Override
+  public Object getObject(String columnLabel) throws SQLException {
+    return getValue(findColumn(columnLabel));
+  }
+
+  @Override
+  public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+    return type.cast(getValue(columnIndex));
+  }
+
+  @Override
+  public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+    return getObject(findColumn(columnLabel), type);
+  }
+
+  @Override
+  public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public String getString(int columnIndex) throws SQLException {
+    Object value = getValue(columnIndex);
+    return value == null ? null : value.toString();
+  }
+
+  @Override
+  public String getString(String columnLabel) throws SQLException {
+    return getString(findColumn(columnLabel));
+  }
+
+  @Override
+  public boolean getBoolean(int columnIndex) throws SQLException {
+    Object value = getValue(columnIndex);
+    if (value instanceof Number) {
+      return ((Number) value).intValue() != 0;
+    }
+    return value != null && (Boolean) value;
+  }
+
+  @Override
+  public boolean getBoolean(String columnLabel) throws SQLException {
+    return getBoolean(findColumn(columnLabel));
+  }
+
+  @Override
+  public int getInt(int columnIndex) throws SQLException {
+    Object value = getValue(columnIndex);
+    return value == null ? 0 : ((Number) value).intValue();
+  }
+
+  @Override
+  public int getInt(String columnLabel) throws SQLException {
+    return getInt(findColumn(columnLabel));
+  }
+
+  @Override
+  public long getLong(int columnIndex) throws SQLException {
+    Object value = getValue(columnIndex);
+    return value == null ? 0 : ((Number) value).longValue();
+  }
+
+  @Override
+  public long getLong(String columnLabel) throws SQLException {
+    return getLong(findColumn(columnLabel));
+  }
+
+  @Override
+  public double getDouble(int columnIndex) throws SQLException {
+    Object value = getValue(columnIndex);
+    return value == null ? 0 : ((Number) value).doubleValue();
+  }
+
+  @Override
+  public double getDouble(String columnLabel) throws SQLException {
+    return getDouble(findColumn(columnLabel));
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+    return (BigDecimal) getValue(columnIndex);
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+    return getBigDecimal(findColumn(columnLabel));
+  }
+
+  @Override
+  public Date getDate(int columnIndex) throws SQLException {
+    return (Date) getValue(columnIndex);
+  }
+
+  @Override
+  public Date getDate(String columnLabel) throws SQLException {
+    return getDate(findColumn(columnLabel));
+  }
+
+  @Override
+  public Timestamp getTimestamp(int columnIndex) throws SQLException {
+    return (Timestamp) getValue(columnIndex);
+  }
+
+  @Override
+  public Timestamp getTimestamp(String columnLabel) throws SQLException {
+    return getTimestamp(findColumn(columnLabel));
+  }
+
+  @Override
+  public ResultSetMetaData getMetaData() throws SQLException {
+    return metaData;
+  }
+
+  @Override
+  public int getRow() throws SQLException {
+    return rowIndex >= 0 && rowIndex < data.length ? rowIndex + 1 : 0;
+  }
+
+  @Override
+  public boolean isBeforeFirst() throws SQLException {
+    return rowIndex < 0 && data.length > 0;
+  }
+
+  @Override
+  public boolean isAfterLast() throws SQLException {
+    return rowIndex >= data.length && data.length > 0;
+  }
+
+  @Override
+  public boolean isFirst() throws SQLException {
+    return rowIndex == 0 && data.length > 0;
+  }
+
+  @Override
+  public boolean isLast() throws SQLException {
+    return rowIndex >= 0 && rowIndex == data.length - 1;
+  }
+
+  @Override
+  public int getType() throws SQLException {
+    return TYPE_FORWARD_ONLY;
+  }
+
+  @Override
+  public int getConcurrency() throws SQLException {
+    return CONCUR_READ_ONLY;
+  }
+
+  @Override
+  public int getHoldability() throws SQLException {
+    return CLOSE_CURSORS_AT_COMMIT;
+  }
+
+  @Override
+  public int getFetchDirection() throws SQLException {
+    return FETCH_FORWARD;
+  }
+
+  @Override
+  public void setFetchDirection(int direction) throws SQLException {
+    if (direction != FETCH_FORWARD) {
+      throw unsupported();
+    }
+  }
+
+  @Override
+  public int getFetchSize() throws SQLException {
+    return fetchSize;
+  }
+
+  @Override
+  public void setFetchSize(int rows) throws SQLException {
+    fetchSize = rows;
+  }
+
+  @Override
+  public SQLWarning getWarnings() throws SQLException {
+    return null;
+  }
+
+  @Override
+  public void clearWarnings() throws SQLException {}
+
+  @Override
+  public Statement getStatement() throws SQLException {
+    return null;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    closed = true;
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    return closed;
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) {
+      return iface.cast(this);
+    }
+    throw new SQLException("Not a wrapper for " + iface.getName());
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(this);
+  }
+
+  // not used by the mappers
+
+  @Override
+  public boolean absolute(int rows) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void afterLast() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void cancelRowUpdates() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void deleteRow() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean first() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Array getArray(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Array getArray(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public InputStream getAsciiStream(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public InputStream getAsciiStream(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  @Deprecated
+  public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  @Deprecated
+  public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public InputStream getBinaryStream(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public InputStream getBinaryStream(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Blob getBlob(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Blob getBlob(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public byte getByte(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public byte getByte(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public byte[] getBytes(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public byte[] getBytes(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Reader getCharacterStream(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Reader getCharacterStream(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Clob getClob(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Clob getClob(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public String getCursorName() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public float getFloat(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public float getFloat(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Reader getNCharacterStream(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Reader getNCharacterStream(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public NClob getNClob(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public NClob getNClob(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public String getNString(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public String getNString(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Ref getRef(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Ref getRef(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public RowId getRowId(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public RowId getRowId(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public SQLXML getSQLXML(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public SQLXML getSQLXML(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public short getShort(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public short getShort(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Time getTime(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Time getTime(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public URL getURL(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public URL getURL(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  @Deprecated
+  public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  @Deprecated
+  public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void insertRow() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean last() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void moveToCurrentRow() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void moveToInsertRow() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean previous() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void refreshRow() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean relative(int rows) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean rowDeleted() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean rowInserted() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public boolean rowUpdated() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateArray(String columnLabel, Array x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateArray(int columnIndex, Array x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateAsciiStream(
+      String columnLabel, InputStream x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBinaryStream(
+      String columnLabel, InputStream x, int length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBinaryStream(
+      String columnLabel, InputStream x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, InputStream x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, InputStream x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, Blob x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, InputStream x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, InputStream x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, Blob x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateByte(String columnLabel, byte x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateByte(int columnIndex, byte x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel, Reader x, int length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Clob x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Clob x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateDate(String columnLabel, Date x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateDate(int columnIndex, Date x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateDouble(String columnLabel, double x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateDouble(int columnIndex, double x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateFloat(String columnLabel, float x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateFloat(int columnIndex, float x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateInt(String columnLabel, int x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateInt(int columnIndex, int x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateLong(String columnLabel, long x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateLong(int columnIndex, long x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNCharacterStream(
+      String columnLabel, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNCharacterStream(String columnLabel, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, NClob x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, Reader x, long length) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, Reader x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, NClob x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNString(String columnLabel, String x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNString(int columnIndex, String x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNull(String columnLabel) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateNull(int columnIndex) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateObject(String columnLabel, Object x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateObject(int columnIndex, Object x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateRef(String columnLabel, Ref x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateRef(int columnIndex, Ref x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateRow() throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateRowId(String columnLabel, RowId x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateRowId(int columnIndex, RowId x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateShort(String columnLabel, short x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateShort(int columnIndex, short x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateString(String columnLabel, String x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateString(int columnIndex, String x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateTime(String columnLabel, Time x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateTime(int columnIndex, Time x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+    throw unsupported();
+  }
+
+  @Override
+  public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+    throw unsupported();
+  }
+
+  private class InMemoryResultSetMetaData implements ResultSetMetaData {
+
+    @Override
+    public int getColumnCount() throws SQLException {
+      return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) throws SQLException {
+      return columnNames[columnIndex - 1];
+    }
+
+    @Override
+    public String getColumnLabel(int columnIndex) throws SQLException {
+      return columnNames[columnIndex - 1];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+      if (iface.isInstance(this)) {
+        return iface.cast(this);
+      }
+      throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      return iface.isInstance(this);
+    }
+
+    @Override
+    public String getCatalogName(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public String getColumnClassName(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public int getColumnDisplaySize(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public int getColumnType(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public String getColumnTypeName(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public int getPrecision(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public int getScale(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public String getSchemaName(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public String getTableName(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isAutoIncrement(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isCaseSensitive(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isCurrency(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public int isNullable(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isReadOnly(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isSearchable(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isSigned(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+
+    @Override
+    public boolean isWritable(int columnIndex) throws SQLException {
+      throw unsupported();
+    }
+  }
+}
@@ -90,6 +90,16 @@ public class MockResultSet {
         .when(rs)
         .getObject(anyInt());
 
+    // mock rs.getLong(columnIndex). The JdbcUtil mappers read the ids with it
+    doAnswer(
+            invocation -> {
+              final Integer index = invocation.getArgument(0, Integer.class);
+              final var value = data[rowIndex][index - 1];
+              return value == null ? 0L : ((Number) value).longValue();
+            })
+        .when(rs)
+        .getLong(anyInt());
+
     final var rsmd = mock(ResultSetMetaData.class);
 
     // mock rsmd.getColumnCount()
@@ -122,4 +132,16 @@ public class MockResultSet {
       throws SQLException {
     return new MockResultSet(columnNames, data).buildMock();
   }
+
+  /**
+   * Creates a ResultSet which is not a mock (see InMemoryResultSet.java). For benchmarks, where
+   * the overhead of the mock would hide what is being measured.
+   *
+   * @param columnNames the names of the columns
+   * @param data the rows
+   * @return the ResultSet
+   */
+  public static ResultSet createInMemory(final String[] columnNames, final Object[][] data) {
+    return new InMemoryResultSet(columnNames, data);
+  }
 }